@@ -4,34 +4,30 @@ import battlecode.common.*;
 
 public class Communication {
     /**
-     * Sends an encoded robotInfo to targetLoc
+     * Queues sightings of up to two enemy towers or enemy paint tiles for the robot at targetLoc in one message
      */
-    public static void sendRobotInformation(RobotController rc, RobotInfo robotInfo, MapLocation targetLoc) throws GameActionException {
-        int encodedInfo = RobotInfoCodec.encode(robotInfo);
-        if (rc.canSendMessage(targetLoc, encodedInfo)) {
-            rc.sendMessage(targetLoc, encodedInfo);
+    public static void sendEnemyTiles(RobotController rc, MapInfo first, MapInfo second, MapLocation targetLoc) throws GameActionException {
+        if (first == null) {
+            sendEnemyTile(rc, second, targetLoc);
+            return;
         }
+        Outbox.enqueue(rc, targetLoc, Protocol.enemyTiles(first, second), Outbox.PRIORITY_REPORT);
     }
 
     /**
-     * Send Map information to targetLoc
+     * Queues two facts for the robot at targetLoc in one message
      */
-    public static void sendMapInformation(RobotController rc, MapInfo mapInfo, MapLocation targetLoc) throws GameActionException {
-        if (mapInfo == null) {
-            return;
-        }
-        int encodedInfo = MapInfoCodec.encode(mapInfo);
-        if (rc.canSendMessage(targetLoc, encodedInfo)) {
-            rc.sendMessage(targetLoc, encodedInfo);
-        }
+    public static void sendFacts(RobotController rc, int first, int second, MapLocation targetLoc) throws GameActionException {
+        Outbox.enqueue(rc, targetLoc, Protocol.facts(first, second), Outbox.PRIORITY_REPORT);
     }
 
     /**
-     * Checks to see if input message is a robot info or map info
+     * Queues a sighting of an enemy tower or enemy paint at mapInfo for the robot at targetLoc
      */
-    public static boolean isRobotInfo(int msg){
-        return msg >>> 21 > 0;
+    public static void sendEnemyTile(RobotController rc, MapInfo mapInfo, MapLocation targetLoc) throws GameActionException {
+        if (mapInfo == null) {
+            return;
+        }
+        Outbox.enqueue(rc, targetLoc, Protocol.enemyTile(mapInfo), Outbox.PRIORITY_REPORT);
     }
-
-
 }
@@ -3,9 +3,6 @@ package v3;
 import battlecode.common.*;
 
 import java.util.Map;
-import java.util.Random;
-import java.util.Set;
-import java.util.HashSet;
 import static java.util.Map.entry;
 
 public class Constants {
@@ -26,7 +23,6 @@ public class Constants {
             entry(PaintType.ENEMY_PRIMARY, -2),
             entry(PaintType.ENEMY_SECONDARY, -2)
     );
-    public static final Random rng = new Random();
     public static final double PERCENT_PAINT = 0.7;
     public static final int RESIGN_AFTER = 2005;
     public static final int lowPaintThreshold = 20;
@@ -43,37 +39,40 @@ public class Constants {
     public static final int DEV_LIFE_CYCLE_TURNS = 30;
     public static final int SRP_LIFE_CYCLE_TURNS = 30;
     public static final int MIN_PAINT_GIVE = 50;
+    // Rounds between a paint tower's broadcasts of how much paint it has
+    public static final int TOWER_PAINT_PERIOD = 20;
+    public static final int ENEMY_TOWER_PAIR_ROUNDS = 50; // towers only add the enemy tower to alerts this long after hearing of it
+
+    public static final int BYTECODE_RESERVE = 1500; // bytecode kept free at the end of a turn so it never spills over
+    public static final int INBOX_SIZE = 64; // max messages a tower holds on to before processing them
 
     public static final int SRP_MAP_WIDTH = 95;
     public static final int SRP_MAP_HEIGHT = 95;
 
 
-    public static final Set<HashableCoords> primarySRP = Set.of(new HashableCoords(2,0),
-            new HashableCoords(1,1),new HashableCoords(2,1),new HashableCoords(3,1),
-            new HashableCoords(0,2),new HashableCoords(1,2),new HashableCoords(3,2),
-            new HashableCoords(1,3),new HashableCoords(2,3), new HashableCoords(3,3),
-            new HashableCoords(2,4), new HashableCoords(4,2)
-    );
-
+    // 5x5 patterns are stored as 25-bit masks, where tile (i, j) of the pattern (offset (i-2, j-2) from the
+    // center) is bit i*5 + j. Each group of five bits below is one value of i, from i = 4 down to i = 0
+    // Set bits are primary tiles of the SRP
+    public static final int primarySRP = 0b00100_01110_11011_01110_00100;
+    // Same SRP pattern on the 4x4 grid soldiers paint while wandering, tile (x % 4, y % 4) is bit (x % 4)*4 + y % 4
+    public static final int primarySRPGrid = 0b1110_1011_1110_0100;
 
-    public static final PaintType[][] paintTowerPattern =
-                    {{PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY},
-                    {PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY},
-                    {PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY, PaintType.EMPTY, PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY},
-                    {PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY},
-                    {PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY}};
+    // Set bits are secondary tiles of the tower pattern, the center (the ruin itself) is never painted
+    public static final int paintTowerPattern = 0b10001_01010_00000_01010_10001;
+    public static final int moneyTowerPattern = 0b01110_11011_10001_11011_01110;
+    public static final int defenseTowerPattern = 0b00100_01110_11011_01110_00100;
 
-    public static final PaintType[][] moneyTowerPattern =
-                    {{PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY},
-                    {PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY},
-                    {PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.EMPTY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY},
-                    {PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY},
-                    {PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY}};
+    /**
+     * Returns true if tile (i, j) of the 5x5 SRP, with (2, 2) being the center, should be primary paint
+     */
+    public static boolean isPrimarySRP(int i, int j) {
+        return (primarySRP >> (i * 5 + j) & 1) != 0;
+    }
 
-    public static final PaintType[][] defenseTowerPattern =
-            {{PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY},
-                    {PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY},
-                    {PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.EMPTY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY},
-                    {PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY},
-                    {PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_SECONDARY, PaintType.ALLY_PRIMARY, PaintType.ALLY_PRIMARY}};
+    /**
+     * Returns true if tile (i, j) of a 5x5 tower pattern mask, with (2, 2) being the ruin, should be secondary paint
+     */
+    public static boolean isSecondaryTile(int towerPattern, int i, int j) {
+        return (towerPattern >> (i * 5 + j) & 1) != 0;
+    }
 }
@@ -0,0 +1,134 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Finds the nearest part of the map the robot hasn't seen yet
+ * The map is split into CHUNK_SIZE x CHUNK_SIZE chunks, and a chunk counts as explored once most of its tiles
+ * show up in MapMemory.seenRows. Explored chunks are kept as one bitmask per row of chunks, so the nearest
+ * unexplored chunk in a row is found with a couple of bit scans and the whole search is one pass over the rows.
+ * The frontier is cached and only searched for again once its chunk gets explored
+ */
+public class Exploration {
+    public static final int CHUNK_SHIFT = 2;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    static int chunksWide = 0;
+    static int chunksHigh = 0;
+    // Tiles of each chunk seen so far, and how many make it count as explored
+    static int[] seenCounts = null;
+    static int[] exploredAt = null;
+    // Bit cx of exploredRows[cy] is set once chunk (cx, cy) is explored
+    static int[] exploredRows = null;
+    static int allChunks = 0;
+
+    static MapLocation frontier = null;
+    static boolean frontierStale = true;
+
+    /**
+     * Sets up the chunk summary for a width x height map
+     */
+    public static void init(int width, int height) {
+        chunksWide = (width + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        chunksHigh = (height + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        seenCounts = new int[chunksWide * chunksHigh];
+        exploredAt = new int[chunksWide * chunksHigh];
+        exploredRows = new int[chunksHigh];
+        allChunks = (1 << chunksWide) - 1;
+        for (int cy = chunksHigh; --cy >= 0; ) {
+            int h = Math.min(CHUNK_SIZE, height - (cy << CHUNK_SHIFT));
+            for (int cx = chunksWide; --cx >= 0; ) {
+                int w = Math.min(CHUNK_SIZE, width - (cx << CHUNK_SHIFT));
+                // A few tiles on the edge of the vision disc shouldn't keep a chunk unexplored
+                exploredAt[cx + cy * chunksWide] = (w * h * 3 + 3) / 4;
+            }
+        }
+    }
+
+    /**
+     * Counts a tile the map memory sees for the first time
+     */
+    public static void onFirstSeen(int x, int y) {
+        int cx = x >> CHUNK_SHIFT;
+        int cy = y >> CHUNK_SHIFT;
+        int chunk = cx + cy * chunksWide;
+        if (++seenCounts[chunk] == exploredAt[chunk]) {
+            exploredRows[cy] |= 1 << cx;
+            if (frontier != null && frontier.x >> CHUNK_SHIFT == cx && frontier.y >> CHUNK_SHIFT == cy) {
+                frontierStale = true;
+                Scheduler.schedule(Scheduler.EXPLORATION);
+            }
+        }
+    }
+
+    public static boolean isExplored(MapLocation loc) {
+        return MapMemory.onTheMap(loc.x, loc.y) && ((exploredRows[loc.y >> CHUNK_SHIFT] >> (loc.x >> CHUNK_SHIFT)) & 1) != 0;
+    }
+
+    /**
+     * Returns the middle of the unexplored chunk nearest to from, or null if every chunk is explored
+     */
+    static MapLocation findFrontier(MapLocation from) {
+        int fx = from.x >> CHUNK_SHIFT;
+        int fy = from.y >> CHUNK_SHIFT;
+        // Columns 0 to fx, where the highest set bit of the unexplored ones is the nearest to the left
+        int leftMask = (2 << fx) - 1;
+        int best = Integer.MAX_VALUE;
+        int bestX = -1;
+        int bestY = -1;
+        for (int cy = chunksHigh; --cy >= 0; ) {
+            int unexplored = ~exploredRows[cy] & allChunks;
+            if (unexplored == 0) {
+                continue;
+            }
+            int dy = cy - fy;
+            int dist = dy * dy;
+            if (dist >= best) {
+                continue;
+            }
+            int right = unexplored >>> fx;
+            if (right != 0) {
+                int dx = Integer.numberOfTrailingZeros(right);
+                if (dist + dx * dx < best) {
+                    best = dist + dx * dx;
+                    bestX = fx + dx;
+                    bestY = cy;
+                }
+            }
+            int left = unexplored & leftMask;
+            if (left != 0) {
+                int dx = fx - (31 - Integer.numberOfLeadingZeros(left));
+                if (dist + dx * dx < best) {
+                    best = dist + dx * dx;
+                    bestX = fx - dx;
+                    bestY = cy;
+                }
+            }
+        }
+        if (bestX == -1) {
+            return null;
+        }
+        int x = Math.min((bestX << CHUNK_SHIFT) + CHUNK_SIZE / 2, MapMemory.width - 1);
+        int y = Math.min((bestY << CHUNK_SHIFT) + CHUNK_SIZE / 2, MapMemory.height - 1);
+        return new MapLocation(x, y);
+    }
+
+    /**
+     * Scheduler job: finds a new frontier once the old one was explored
+     */
+    public static boolean update(RobotController rc) {
+        if (frontierStale) {
+            frontier = findFrontier(rc.getLocation());
+            frontierStale = false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the nearest unexplored spot, or null once the whole map has been seen
+     */
+    public static MapLocation frontier(RobotController rc) {
+        update(rc);
+        return frontier;
+    }
+}
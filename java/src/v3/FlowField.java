@@ -0,0 +1,297 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Distance fields towards far away targets (paint towers to refill at, enemy towers to attack)
+ * A field is a BFS from its target over the map memory, where tiles never seen count as passable.
+ * Each BFS layer is kept as one bitmask per map row, so growing a field by a layer is a few shifts and
+ * ors per row and the field is built a layer at a time by the scheduler with spare bytecode.
+ * Growing a field never changes the layers it already has, so a robot can follow a field as soon as it reaches
+ * the robot's tile: every step is a move into a neighbour one layer closer to the target.
+ * When a tile the field went through turns out to be impassable, the field is cut back to the layers before
+ * that tile, which are still exact, and grown again from there. Finished fields are checked for new walls too
+ */
+public class FlowField {
+    public static final int MAX_FIELDS = 4;
+    public static final int MAX_LAYERS = 256;
+    // Fields nobody asked for in this many rounds stop being built
+    static final int IDLE_ROUNDS = 50;
+
+    static MapLocation[] targets = new MapLocation[MAX_FIELDS];
+    static int[] lastUsed = new int[MAX_FIELDS];
+    static boolean[] complete = new boolean[MAX_FIELDS];
+    static int[] numLayers = new int[MAX_FIELDS];
+    // Layer the robot was last found in, where the next lookup starts searching
+    static int[] lastLayer = new int[MAX_FIELDS];
+    // Value of MapMemory.wallCount when the field was last checked against new walls
+    static int[] wallsChecked = new int[MAX_FIELDS];
+    // Bit x of visited[f][y] is set if (x, y) is in some layer of field f
+    static long[][] visited = new long[MAX_FIELDS][];
+    // layers[f][k][y] holds the tiles of row y at distance k from the target, for rows layerLo to layerHi
+    static long[][][] layers = new long[MAX_FIELDS][MAX_LAYERS][];
+    static int[][] layerLo = new int[MAX_FIELDS][MAX_LAYERS];
+    static int[][] layerHi = new int[MAX_FIELDS][MAX_LAYERS];
+
+    static long[] spread = null;
+
+    /**
+     * Returns the field with the given target, or -1 if there is none
+     */
+    static int find(MapLocation target) {
+        for (int f = MAX_FIELDS; --f >= 0; ) {
+            if (target.equals(targets[f])) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Makes sure a field towards target exists and gets built with spare bytecode
+     * The field used least recently is replaced if every slot is taken
+     */
+    public static int request(RobotController rc, MapLocation target) {
+        int f = find(target);
+        if (f == -1) {
+            f = 0;
+            for (int i = 1; i < MAX_FIELDS; i++) {
+                if (targets[i] == null || (targets[f] != null && lastUsed[i] < lastUsed[f])) {
+                    f = i;
+                }
+            }
+            reset(f, target);
+        } else {
+            checkWalls(f);
+        }
+        lastUsed[f] = rc.getRoundNum();
+        if (!complete[f]) {
+            Scheduler.schedule(Scheduler.FLOW_FIELD);
+        }
+        return f;
+    }
+
+    /**
+     * Starts field f over with target as its only tile
+     */
+    static void reset(int f, MapLocation target) {
+        int height = MapMemory.height;
+        if (spread == null) {
+            spread = new long[height];
+        }
+        if (visited[f] == null) {
+            visited[f] = new long[height];
+        } else {
+            long[] v = visited[f];
+            for (int y = height; --y >= 0; ) {
+                v[y] = 0;
+            }
+        }
+        if (layers[f][0] == null) {
+            layers[f][0] = new long[height];
+        }
+        targets[f] = target;
+        complete[f] = false;
+        numLayers[f] = 1;
+        lastLayer[f] = 0;
+        wallsChecked[f] = MapMemory.wallCount;
+        long bit = 1L << target.x;
+        layers[f][0][target.y] = bit;
+        layerLo[f][0] = target.y;
+        layerHi[f][0] = target.y;
+        visited[f][target.y] = bit;
+    }
+
+    /**
+     * Cuts field f back to the layers before the first one holding a wall found since the last check
+     * Layers closer to the target than a wall don't depend on it, so only the ones from the wall on are regrown
+     */
+    static void checkWalls(int f) {
+        int count = MapMemory.wallCount;
+        int from = wallsChecked[f];
+        if (from == count) {
+            return;
+        }
+        wallsChecked[f] = count;
+        if (count - from > MapMemory.WALL_LOG_SIZE) {
+            reset(f, targets[f]);
+            return;
+        }
+        long[] v = visited[f];
+        int firstBad = numLayers[f];
+        for (int i = from; i < count; i++) {
+            int packed = MapMemory.wallLog[i % MapMemory.WALL_LOG_SIZE];
+            int x = packed & 63;
+            int y = packed >> 6;
+            if (((v[y] >>> x) & 1) != 0) {
+                int k = layerOf(f, x, y);
+                if (k < firstBad) {
+                    firstBad = k;
+                }
+            }
+        }
+        if (firstBad == 0) {
+            reset(f, targets[f]);
+        } else if (firstBad < numLayers[f]) {
+            truncate(f, firstBad);
+        }
+    }
+
+    /**
+     * Drops layer k and every layer after it from field f, so the field grows again from layer k - 1
+     */
+    static void truncate(int f, int k) {
+        long[] v = visited[f];
+        for (int j = numLayers[f]; --j >= k; ) {
+            long[] layer = layers[f][j];
+            for (int y = layerHi[f][j]; y >= layerLo[f][j]; y--) {
+                v[y] &= ~layer[y];
+            }
+        }
+        numLayers[f] = k;
+        complete[f] = false;
+        if (lastLayer[f] >= k) {
+            lastLayer[f] = k - 1;
+        }
+    }
+
+    /**
+     * Grows field f by one layer, marking it complete once nothing new can be reached
+     */
+    static void expand(int f) {
+        int k = numLayers[f];
+        if (k == MAX_LAYERS) {
+            complete[f] = true;
+            return;
+        }
+        int height = MapMemory.height;
+        long onMap = (1L << MapMemory.width) - 1;
+        long[] blocked = MapMemory.blockedRows;
+        long[] v = visited[f];
+        long[] prev = layers[f][k - 1];
+        int pLo = layerLo[f][k - 1];
+        int pHi = layerHi[f][k - 1];
+        if (layers[f][k] == null) {
+            layers[f][k] = new long[height];
+        }
+        long[] next = layers[f][k];
+        for (int y = pLo; y <= pHi; y++) {
+            long row = prev[y];
+            spread[y] = (row | (row << 1) | (row >>> 1)) & onMap;
+        }
+        int lo = Math.max(pLo - 1, 0);
+        int hi = Math.min(pHi + 1, height - 1);
+        int newLo = height;
+        int newHi = -1;
+        for (int y = lo; y <= hi; y++) {
+            long reach = 0;
+            if (y > pLo) {
+                reach |= spread[y - 1];
+            }
+            if (y >= pLo && y <= pHi) {
+                reach |= spread[y];
+            }
+            if (y < pHi) {
+                reach |= spread[y + 1];
+            }
+            long row = reach & ~blocked[y] & ~v[y];
+            next[y] = row;
+            if (row != 0) {
+                v[y] |= row;
+                if (y < newLo) {
+                    newLo = y;
+                }
+                newHi = y;
+            }
+        }
+        if (newHi == -1) {
+            complete[f] = true;
+            return;
+        }
+        layerLo[f][k] = newLo;
+        layerHi[f][k] = newHi;
+        numLayers[f] = k + 1;
+    }
+
+    /**
+     * Scheduler job: grows every field that is still wanted while there is bytecode to spare
+     * Returns true once none of them needs more work
+     */
+    public static boolean build(RobotController rc) {
+        int round = rc.getRoundNum();
+        for (int f = MAX_FIELDS; --f >= 0; ) {
+            if (targets[f] == null || round - lastUsed[f] > IDLE_ROUNDS) {
+                continue;
+            }
+            checkWalls(f);
+            while (!complete[f]) {
+                if (!Scheduler.hasBudget()) {
+                    return false;
+                }
+                expand(f);
+            }
+        }
+        return true;
+    }
+
+    static boolean inLayer(int f, int k, int x, int y) {
+        return y >= layerLo[f][k] && y <= layerHi[f][k] && ((layers[f][k][y] >>> x) & 1) != 0;
+    }
+
+    /**
+     * Returns the layer of field f that (x, y) is in, or -1 if the field hasn't reached it
+     */
+    static int layerOf(int f, int x, int y) {
+        if (((visited[f][y] >>> x) & 1) == 0) {
+            return -1;
+        }
+        int guess = lastLayer[f];
+        for (int k = Math.max(guess - 1, 0); k <= guess + 1 && k < numLayers[f]; k++) {
+            if (inLayer(f, k, x, y)) {
+                return k;
+            }
+        }
+        for (int k = numLayers[f]; --k >= 0; ) {
+            if (inLayer(f, k, x, y)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if a finished field towards target shows there is no way to it from loc
+     */
+    public static boolean isUnreachable(MapLocation target, MapLocation loc) {
+        int f = find(target);
+        if (f == -1) {
+            return false;
+        }
+        checkWalls(f);
+        return complete[f] && numLayers[f] < MAX_LAYERS && layerOf(f, loc.x, loc.y) == -1;
+    }
+
+    /**
+     * Returns a move one layer closer to target, or null if the field towards target doesn't reach the robot yet
+     * or every such move is blocked. Asks for the field to be built if there is none
+     */
+    public static Direction nextStep(RobotController rc, MapLocation target) throws GameActionException {
+        int f = request(rc, target);
+        MapLocation curLocation = rc.getLocation();
+        int k = layerOf(f, curLocation.x, curLocation.y);
+        if (k <= 0) {
+            return null;
+        }
+        lastLayer[f] = k;
+        int width = MapMemory.width;
+        int height = MapMemory.height;
+        for (Direction dir : Constants.directions) {
+            int x = curLocation.x + dir.getDeltaX();
+            int y = curLocation.y + dir.getDeltaY();
+            if (x >= 0 && y >= 0 && x < width && y < height && inLayer(f, k - 1, x, y) && rc.canMove(dir)) {
+                return dir;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Tower-side table of what the team knows about the enemy: enemy towers, contested ruins and enemy paint clusters
+ * Each kind of fact has CAPACITY slots holding a location and the round it was last heard of, and the stalest
+ * entry makes room for new ones. Entries that changed because of a robot's report are marked dirty and sent to
+ * the other towers, two per broadcast, so towers only gossip what the others haven't heard yet.
+ * Newly spawned units are told about the entries most relevant to their role
+ */
+public class Gossip {
+    public static final int CAPACITY = 8;
+    // Enemy paint within this squared distance of a known cluster is merged into it
+    static final int CLUSTER_RADIUS_SQUARED = 16;
+
+    // Entries of kind k are locs[k][i] = x | y << 6 for i below counts[k]
+    static int[][] locs = new int[Protocol.NUM_KINDS][CAPACITY];
+    static int[][] lastSeen = new int[Protocol.NUM_KINDS][CAPACITY];
+    static boolean[][] dirty = new boolean[Protocol.NUM_KINDS][CAPACITY];
+    static int[] counts = new int[Protocol.NUM_KINDS];
+    static int numDirty = 0;
+
+    // How much each role cares about each kind of fact, in rounds of age, indexed by [role][kind]
+    static final int[][] KIND_WEIGHT = {
+            {0, 0, 0},      // ROLE_DEVELOP
+            {40, 10, 0},    // ROLE_ADVANCE
+            {100, 0, 0},    // ROLE_ATTACK
+            {0, 40, 60},    // ROLE_MOPPER
+            {60, 40, 40},   // ROLE_SPLASHER
+    };
+
+    static int distanceSquared(int a, int b) {
+        int dx = (a & 63) - (b & 63);
+        int dy = (a >> 6) - (b >> 6);
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Returns the entry of kind that loc falls into, or -1
+     */
+    static int find(int kind, int loc) {
+        int radius = kind == Protocol.KIND_ENEMY_PAINT ? CLUSTER_RADIUS_SQUARED : 0;
+        int[] kindLocs = locs[kind];
+        for (int i = counts[kind]; --i >= 0; ) {
+            if (distanceSquared(kindLocs[i], loc) <= radius) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds fact to the table or refreshes the entry it belongs to
+     * If relay is set, the entry is passed on to the other towers in a later delta
+     */
+    public static void observe(int round, int fact, boolean relay) {
+        int kind = Protocol.factKind(fact);
+        int loc = fact & 4095;
+        int i = find(kind, loc);
+        if (i == -1) {
+            if (counts[kind] < CAPACITY) {
+                i = counts[kind]++;
+            } else {
+                // Replace the entry heard of longest ago
+                i = 0;
+                for (int j = 1; j < CAPACITY; j++) {
+                    if (lastSeen[kind][j] < lastSeen[kind][i]) {
+                        i = j;
+                    }
+                }
+                if (dirty[kind][i]) {
+                    dirty[kind][i] = false;
+                    numDirty--;
+                }
+            }
+        }
+        // Paint clusters follow the latest report
+        locs[kind][i] = loc;
+        lastSeen[kind][i] = round;
+        if (relay && !dirty[kind][i]) {
+            dirty[kind][i] = true;
+            numDirty++;
+        }
+    }
+
+    public static boolean hasDelta() {
+        return numDirty > 0;
+    }
+
+    /**
+     * Returns a message with up to two of the freshest dirty entries and marks them clean
+     */
+    public static int delta() {
+        int first = takeFreshestDirty();
+        return Protocol.facts(first, takeFreshestDirty());
+    }
+
+    static int takeFreshestDirty() {
+        int bestKind = -1;
+        int best = -1;
+        for (int kind = Protocol.NUM_KINDS; --kind >= 0; ) {
+            for (int i = counts[kind]; --i >= 0; ) {
+                if (dirty[kind][i] && (best == -1 || lastSeen[kind][i] > lastSeen[bestKind][best])) {
+                    bestKind = kind;
+                    best = i;
+                }
+            }
+        }
+        if (best == -1) {
+            return -1;
+        }
+        dirty[bestKind][best] = false;
+        numDirty--;
+        return (bestKind << 12) | locs[bestKind][best];
+    }
+
+    /**
+     * Returns the entry that matters most to a unit with the given role starting at from, other than skip, or -1
+     * Entries are worth the role's weight for their kind, less their age and a rough travel time
+     */
+    static int mostRelevant(int round, int role, MapLocation from, int skip) {
+        int here = from.x | (from.y << 6);
+        int[] weights = KIND_WEIGHT[role];
+        int bestFact = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int kind = Protocol.NUM_KINDS; --kind >= 0; ) {
+            if (weights[kind] == 0) {
+                continue;
+            }
+            for (int i = counts[kind]; --i >= 0; ) {
+                int fact = (kind << 12) | locs[kind][i];
+                int score = weights[kind] - (round - lastSeen[kind][i]) - distanceSquared(locs[kind][i], here) / 8;
+                if (fact != skip && score > bestScore) {
+                    bestScore = score;
+                    bestFact = fact;
+                }
+            }
+        }
+        return bestFact;
+    }
+
+    /**
+     * Returns a message with the two entries most relevant to a unit with the given role spawned at from,
+     * or 0 if there is nothing worth telling it
+     */
+    public static int spawnMessage(int round, int role, MapLocation from) {
+        int first = mostRelevant(round, role, from, -1);
+        if (first == -1) {
+            return 0;
+        }
+        return Protocol.facts(first, mostRelevant(round, role, from, first));
+    }
+}
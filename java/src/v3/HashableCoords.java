@@ -1,27 +0,0 @@
-package v3;
-
-/**
- * a hashable version of MapLoaction
- */
-public class HashableCoords {
-    private final int x;
-    private final int y;
-
-    public HashableCoords(int x, int y) {
-        this.x = x;
-        this.y = y;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        HashableCoords point = (HashableCoords) o;
-        return x == point.x && y == point.y;
-    }
-
-    @Override
-    public int hashCode() {
-        return 31 * x + y;
-    }
-}
@@ -7,17 +7,10 @@ public class Helper {
      * the map is predivided into 4x4 grids, which soldiers will use to paint tiles accordingly
      */
     public static boolean resourcePatternGrid(RobotController rc, MapLocation loc) {
-        int x = loc.x % 4;
-        int y = loc.y % 4;
-        HashableCoords coords = new HashableCoords(x, y);
-        return Constants.primarySRP.contains(coords);
+        return (Constants.primarySRPGrid >> (((loc.x & 3) << 2) | (loc.y & 3)) & 1) != 0;
     }
     public static PaintType resourcePatternType(RobotController rc, MapLocation loc) {
-
-        int x = loc.x % 4;
-        int y = loc.y % 4;
-        HashableCoords coords = new HashableCoords(x, y);
-        if (Constants.primarySRP.contains(coords)){
+        if ((Constants.primarySRPGrid >> (((loc.x & 3) << 2) | (loc.y & 3)) & 1) != 0){
             return PaintType.ALLY_PRIMARY;
         }
         return PaintType.ALLY_SECONDARY;
@@ -26,9 +19,10 @@ public class Helper {
      * any bot will try to complete resource pattterns nearby
      */
     public static void tryCompleteResourcePattern(RobotController rc) throws GameActionException {
-        for (MapInfo tile: rc.senseNearbyMapInfos(16)){
+        for (MapInfo tile: TurnContext.nearbyMapInfos(rc, 16)){
             if (rc.canCompleteResourcePattern(tile.getMapLocation())){
                 rc.completeResourcePattern(tile.getMapLocation());
+                TurnContext.invalidate();
             }
         }
     }
@@ -0,0 +1,93 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Shortest-path search over the window of tiles within RADIUS of the robot, stored as row bitmasks
+ * Bit c of row r is the tile (x - RADIUS + c, y - RADIUS + r), and passability comes from the map memory,
+ * so tiles the robot hasn't seen are assumed to be passable. The search runs backwards from the goal,
+ * and expanding the whole frontier by one step is a few shifts, ands and ors per row.
+ * The first layer that touches a tile next to the robot gives the first step of a shortest path
+ */
+public class LocalBFS {
+    public static final int RADIUS = 4;
+    public static final int SIZE = 2 * RADIUS + 1;
+    static final int FULL = (1 << SIZE) - 1;
+    // Bits of the tiles next to the robot in rows RADIUS - 1 to RADIUS + 1
+    static final int NEIGHBORS = 0b111 << (RADIUS - 1);
+
+    static int[] open = new int[SIZE];
+    static int[] visited = new int[SIZE];
+    static int[] frontier = new int[SIZE];
+    static int[] spread = new int[SIZE];
+
+    /**
+     * Returns true if loc is inside the search window around center
+     */
+    public static boolean inWindow(MapLocation center, MapLocation loc) {
+        int dx = loc.x - center.x;
+        int dy = loc.y - center.y;
+        return dx >= -RADIUS && dx <= RADIUS && dy >= -RADIUS && dy <= RADIUS;
+    }
+
+    /**
+     * Returns the first step of a shortest path from the robot to goal inside the window
+     * Returns null if goal is outside the window, blocked, or can't be reached without leaving the window
+     */
+    public static Direction firstStep(RobotController rc, MapLocation goal) throws GameActionException {
+        MapLocation curLocation = rc.getLocation();
+        if (!inWindow(curLocation, goal) || curLocation.equals(goal)) {
+            return null;
+        }
+        int ox = curLocation.x - RADIUS;
+        int oy = curLocation.y - RADIUS;
+        for (int r = SIZE; --r >= 0; ) {
+            open[r] = MapMemory.passableRow(oy + r, ox, SIZE);
+            visited[r] = 0;
+            frontier[r] = 0;
+        }
+        int gc = goal.x - ox;
+        int gr = goal.y - oy;
+        if ((open[gr] & (1 << gc)) == 0) {
+            return null;
+        }
+        frontier[gr] = 1 << gc;
+        visited[gr] = 1 << gc;
+        while (true) {
+            // Did this layer reach a tile next to the robot?
+            if (((frontier[RADIUS - 1] | frontier[RADIUS] | frontier[RADIUS + 1]) & NEIGHBORS) != 0) {
+                for (Direction dir : Constants.directions) {
+                    int r = RADIUS + dir.getDeltaY();
+                    int c = RADIUS + dir.getDeltaX();
+                    if ((frontier[r] & (1 << c)) != 0 && rc.canMove(dir)) {
+                        return dir;
+                    }
+                }
+            }
+            // Expand the frontier by one step in all 8 directions
+            for (int r = SIZE; --r >= 0; ) {
+                int f = frontier[r];
+                spread[r] = (f | (f << 1) | (f >> 1)) & FULL;
+            }
+            boolean grew = false;
+            for (int r = SIZE; --r >= 0; ) {
+                int reach = spread[r];
+                if (r > 0) {
+                    reach |= spread[r - 1];
+                }
+                if (r < SIZE - 1) {
+                    reach |= spread[r + 1];
+                }
+                int next = reach & open[r] & ~visited[r];
+                frontier[r] = next;
+                if (next != 0) {
+                    visited[r] |= next;
+                    grew = true;
+                }
+            }
+            if (!grew) {
+                return null;
+            }
+        }
+    }
+}
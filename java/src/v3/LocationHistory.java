@@ -0,0 +1,47 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Fixed-size history of the last locations a robot has been at
+ * Locations are packed into ints and kept in a ring buffer, and a visit counter per tile lets
+ * "was I here in the last SIZE turns" be answered with a single array read
+ */
+public class LocationHistory {
+    public static final int SIZE = 16;
+
+    // Packed as (x << 6) | y; masking with 63 sends off-map coordinates to x or y = 63, which is never recorded
+    static int[] ring = new int[SIZE];
+    static char[] visits = new char[64 * 64];
+    static int head = 0;
+    static int count = 0;
+
+    /**
+     * Records loc as the most recent location, forgetting the oldest one if the history is full
+     */
+    public static void record(MapLocation loc) {
+        int packed = (loc.x << 6) | loc.y;
+        if (count == SIZE) {
+            visits[ring[head]]--;
+        } else {
+            count++;
+        }
+        ring[head] = packed;
+        visits[packed]++;
+        head = (head + 1) % SIZE;
+    }
+
+    /**
+     * Returns true if the robot was at loc during the last SIZE turns
+     */
+    public static boolean contains(MapLocation loc) {
+        return visits[((loc.x & 63) << 6) | (loc.y & 63)] != 0;
+    }
+
+    /**
+     * Returns true if the robot was at (x, y) during the last SIZE turns
+     */
+    public static boolean contains(int x, int y) {
+        return visits[((x & 63) << 6) | (y & 63)] != 0;
+    }
+}
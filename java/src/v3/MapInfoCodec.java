@@ -78,12 +78,57 @@ public class MapInfoCodec {
         int y = (i>>6)&mask;
         boolean isPassable = (i&(1<<12)) != 0;
         boolean isWall = (i&(1<<13)) != 0;
-        PaintType paint = PaintType.values()[ (i>>14)&((1<<3)-1) ];
-        PaintType mark = PaintType.values()[ (i>>17)&((1<<3)-1) ];
+        PaintType paint = PAINT_TYPES[ (i>>14)&((1<<3)-1) ];
+        PaintType mark = PAINT_TYPES[ (i>>17)&((1<<3)-1) ];
         boolean hasRuin = (i&(1<<20)) != 0;
         return new MapInfo(new MapLocation(x, y), isPassable, isWall, paint, mark, hasRuin, false);
     }
 
+    // Field accessors that read a single field straight from an encoded MapInfo without creating any objects
+
+    static final PaintType[] PAINT_TYPES = PaintType.values();
+
+    public static int x(int i) {
+        return i & 63;
+    }
+
+    public static int y(int i) {
+        return (i >> 6) & 63;
+    }
+
+    public static boolean isPassable(int i) {
+        return (i & (1 << 12)) != 0;
+    }
+
+    public static boolean isWall(int i) {
+        return (i & (1 << 13)) != 0;
+    }
+
+    public static PaintType paint(int i) {
+        return PAINT_TYPES[(i >> 14) & 7];
+    }
+
+    public static PaintType mark(int i) {
+        return PAINT_TYPES[(i >> 17) & 7];
+    }
+
+    public static boolean hasRuin(int i) {
+        return (i & (1 << 20)) != 0;
+    }
+
+    /**
+     * Returns the squared distance from loc to the encoded tile
+     */
+    public static int distanceSquaredTo(int i, MapLocation loc) {
+        int dx = (i & 63) - loc.x;
+        int dy = ((i >> 6) & 63) - loc.y;
+        return dx * dx + dy * dy;
+    }
+
+    public static MapLocation location(int i) {
+        return new MapLocation(i & 63, (i >> 6) & 63);
+    }
+
     public static boolean equals(MapInfo a, MapInfo b) {
         return a.getMapLocation().equals(b.getMapLocation()) &&
                 a.isPassable() == b.isPassable() && a.isWall() == b.isWall() &&
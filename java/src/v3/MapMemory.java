@@ -0,0 +1,260 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Persistent per-robot memory of every tile the robot has seen, packed into one int per tile
+ * After a one-tile move only the newly visible ring of the vision disc is sensed, so the per-turn cost
+ * scales with the ring instead of the whole disc. The tiles around the robot are refreshed every turn
+ * since movement decisions need their current paint, and splashers refresh their whole vision
+ */
+public class MapMemory {
+    // packed tile layout: __________ rrrrrrrrrrrr SPRWmmmppp
+    // p = paint ordinal, m = mark ordinal, W = wall, R = ruin, P = passable, S = seen, r = round last seen
+    public static final int PAINT_MASK = 0b111;
+    public static final int MARK_SHIFT = 3;
+    public static final int WALL = 1 << 6;
+    public static final int RUIN = 1 << 7;
+    public static final int PASSABLE = 1 << 8;
+    public static final int SEEN = 1 << 9;
+    public static final int ROUND_SHIFT = 10;
+
+    public static final PaintType[] PAINT_TYPES = PaintType.values();
+
+    static int width = 0;
+    static int height = 0;
+    static int[] tiles = null;
+    // Splash value of every tile, padded with a 2 tile border of zeros so splash kernels never go out of bounds
+    // Tile (x, y) is at (x + 2) + (y + 2) * splashStride
+    static int[] splashValues = null;
+    static int splashStride = 0;
+    static MapLocation lastLocation = null;
+    // Bit x of blockedRows[y] is set if (x, y) was seen to be impassable; walls and ruins never go away
+    static long[] blockedRows = null;
+    // Bit x of seenRows[y] is set if (x, y) was ever seen
+    static long[] seenRows = null;
+    // Every newly found impassable tile packed as x | y << 6, the last WALL_LOG_SIZE of them are kept
+    public static final int WALL_LOG_SIZE = 128;
+    static int[] wallLog = new int[WALL_LOG_SIZE];
+    static int wallCount = 0;
+
+    // Every ruin the robot has ever seen, in the order they were discovered
+    static MapLocation[] ruins = new MapLocation[128];
+    static int numRuins = 0;
+
+    // Next visible tile to rewrite in refreshStale
+    static int refreshCursor = 0;
+
+    // Offsets of the tiles that become visible after moving one step in each direction, indexed by Direction ordinal
+    static int[][] ringDx = new int[8][];
+    static int[][] ringDy = new int[8][];
+
+    /**
+     * Allocates the memory for the current map and precomputes the vision ring of every direction
+     */
+    public static void init(RobotController rc) {
+        width = rc.getMapWidth();
+        height = rc.getMapHeight();
+        tiles = new int[width * height];
+        splashStride = width + 4;
+        splashValues = new int[splashStride * (height + 4)];
+        blockedRows = new long[height];
+        seenRows = new long[height];
+        Exploration.init(width, height);
+        int radius = GameConstants.VISION_RADIUS_SQUARED;
+        for (Direction dir : Constants.directions) {
+            int ddx = dir.getDeltaX();
+            int ddy = dir.getDeltaY();
+            int[] dxs = new int[20];
+            int[] dys = new int[20];
+            int n = 0;
+            for (int dx = -4; dx <= 4; dx++) {
+                for (int dy = -4; dy <= 4; dy++) {
+                    int ox = dx + ddx;
+                    int oy = dy + ddy;
+                    if (dx * dx + dy * dy <= radius && ox * ox + oy * oy > radius) {
+                        dxs[n] = dx;
+                        dys[n] = dy;
+                        n++;
+                    }
+                }
+            }
+            int[] ringX = new int[n];
+            int[] ringY = new int[n];
+            System.arraycopy(dxs, 0, ringX, 0, n);
+            System.arraycopy(dys, 0, ringY, 0, n);
+            ringDx[dir.ordinal()] = ringX;
+            ringDy[dir.ordinal()] = ringY;
+        }
+    }
+
+    /**
+     * Brings the memory up to date with what the robot sees this turn
+     * Meant to be called once at the start of every turn
+     */
+    public static void update(RobotController rc) throws GameActionException {
+        if (tiles == null) {
+            init(rc);
+        }
+        MapLocation curLocation = rc.getLocation();
+        int round = rc.getRoundNum();
+        if (lastLocation == null || rc.getType() == UnitType.SPLASHER) {
+            refreshVisible(rc, round);
+        } else if (!curLocation.equals(lastLocation)) {
+            if (curLocation.isWithinDistanceSquared(lastLocation, 2)) {
+                refreshRing(rc, curLocation, lastLocation.directionTo(curLocation), round);
+            } else {
+                refreshVisible(rc, round);
+            }
+        }
+        if (rc.getType().isRobotType()) {
+            for (MapInfo tile : TurnContext.nearbyMapInfos(rc, 2)) {
+                write(tile, round);
+            }
+            if (rc.getType() != UnitType.SPLASHER) {
+                // The rest of the vision disc is brought up to date with spare bytecode
+                Scheduler.schedule(Scheduler.MAP_MEMORY);
+            }
+        }
+        lastLocation = curLocation;
+        if (!Symmetry.isResolved()) {
+            Scheduler.schedule(Scheduler.SYMMETRY);
+        }
+    }
+
+    /**
+     * Rewrites visible tiles, starting where the last call stopped, while there is bytecode to spare
+     * Returns true once every visible tile has been rewritten in this call
+     */
+    public static boolean refreshStale(RobotController rc) throws GameActionException {
+        MapInfo[] visible = TurnContext.nearbyMapInfos(rc);
+        int round = rc.getRoundNum();
+        int n = visible.length;
+        int done = 0;
+        while (done < n && Scheduler.hasBudget()) {
+            if (refreshCursor >= n) {
+                refreshCursor = 0;
+            }
+            write(visible[refreshCursor++], round);
+            done++;
+        }
+        return done == n;
+    }
+
+    /**
+     * Rewrites every tile in vision
+     */
+    public static void refreshVisible(RobotController rc, int round) throws GameActionException {
+        for (MapInfo tile : TurnContext.nearbyMapInfos(rc)) {
+            write(tile, round);
+        }
+    }
+
+    /**
+     * Senses only the tiles that became visible after stepping in direction dir
+     */
+    public static void refreshRing(RobotController rc, MapLocation curLocation, Direction dir, int round) throws GameActionException {
+        int[] dxs = ringDx[dir.ordinal()];
+        int[] dys = ringDy[dir.ordinal()];
+        int x = curLocation.x;
+        int y = curLocation.y;
+        for (int i = dxs.length; --i >= 0; ) {
+            int tx = x + dxs[i];
+            int ty = y + dys[i];
+            if (tx >= 0 && ty >= 0 && tx < width && ty < height) {
+                write(rc.senseMapInfo(new MapLocation(tx, ty)), round);
+            }
+        }
+    }
+
+    /**
+     * Stores a sensed tile
+     */
+    public static void write(MapInfo tile, int round) {
+        MapLocation loc = tile.getMapLocation();
+        int index = loc.x + loc.y * width;
+        PaintType paint = tile.getPaint();
+        int packed = paint.ordinal() | (tile.getMark().ordinal() << MARK_SHIFT) | SEEN | (round << ROUND_SHIFT);
+        boolean firstSeen = (tiles[index] & SEEN) == 0;
+        if (tile.isWall()) {
+            packed |= WALL;
+        }
+        if (tile.hasRuin()) {
+            packed |= RUIN;
+            if (firstSeen && numRuins < ruins.length) {
+                RuinRegistry.add(numRuins, loc);
+                ruins[numRuins++] = loc;
+            }
+        }
+        int splashIndex = loc.x + 2 + (loc.y + 2) * splashStride;
+        if (tile.isPassable()) {
+            packed |= PASSABLE;
+            splashValues[splashIndex] = paint.isEnemy() ? 2 : paint.isAlly() ? -1 : 0;
+        } else {
+            splashValues[splashIndex] = paint.isEnemy() ? 2 : -1;
+            long bit = 1L << loc.x;
+            if ((blockedRows[loc.y] & bit) == 0) {
+                blockedRows[loc.y] |= bit;
+                wallLog[wallCount++ % WALL_LOG_SIZE] = loc.x | (loc.y << 6);
+            }
+        }
+        if (((tiles[index] ^ packed) & PAINT_MASK) != 0 && RuinRegistry.patternOwners != null) {
+            RuinRegistry.onPaintChanged(index);
+        }
+        tiles[index] = packed;
+        if (firstSeen) {
+            seenRows[loc.y] |= 1L << loc.x;
+            Exploration.onFirstSeen(loc.x, loc.y);
+        }
+    }
+
+    /**
+     * Returns the tiles of row y from column ox to ox + size - 1 that aren't known to be impassable as a bitmask,
+     * bit c standing for column ox + c; tiles off the map are never set
+     */
+    public static int passableRow(int y, int ox, int size) {
+        if (y < 0 || y >= height) {
+            return 0;
+        }
+        long passable = ~blockedRows[y] & ((1L << width) - 1);
+        return (int) ((ox >= 0 ? passable >>> ox : passable << -ox) & ((1L << size) - 1));
+    }
+
+    public static boolean onTheMap(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Returns the packed tile at (x, y), which is 0 if the tile was never seen
+     */
+    public static int tile(int x, int y) {
+        return tiles[x + y * width];
+    }
+
+    public static boolean isSeen(MapLocation loc) {
+        return onTheMap(loc.x, loc.y) && (tiles[loc.x + loc.y * width] & SEEN) != 0;
+    }
+
+    public static boolean isWall(MapLocation loc) {
+        return onTheMap(loc.x, loc.y) && (tiles[loc.x + loc.y * width] & WALL) != 0;
+    }
+
+    public static boolean hasRuin(MapLocation loc) {
+        return onTheMap(loc.x, loc.y) && (tiles[loc.x + loc.y * width] & RUIN) != 0;
+    }
+
+    /**
+     * Returns the last paint seen at loc, EMPTY if it was never seen
+     */
+    public static PaintType paint(MapLocation loc) {
+        return PAINT_TYPES[tiles[loc.x + loc.y * width] & PAINT_MASK];
+    }
+
+    public static PaintType mark(MapLocation loc) {
+        return PAINT_TYPES[(tiles[loc.x + loc.y * width] >> MARK_SHIFT) & PAINT_MASK];
+    }
+
+    public static int lastSeenRound(MapLocation loc) {
+        return tiles[loc.x + loc.y * width] >>> ROUND_SHIFT;
+    }
+}
@@ -6,37 +6,42 @@ import static v3.RobotPlayer.*;
 
 public class MoneyTower extends Tower {
     /**
-     * Reads new messages and does stuff
+     * Handles a single message, sent by a robot if fromRobot and by a tower otherwise
+     * Money towers don't spawn in response to enemy sightings, they only relay them
      */
-    public static void readNewMessages(RobotController rc) throws GameActionException{
-        // Looks at all incoming messages
-        for (Message message: rc.readMessages(rc.getRoundNum()-1)){
-            int bytes = message.getBytes();
-            if (Communication.isRobotInfo(bytes)){
-                RobotInfo msg = RobotInfoCodec.decode(bytes);
+    public static void handleMessage(RobotController rc, int bytes, boolean fromRobot) throws GameActionException{
+        for (int i = Protocol.numFacts(bytes); --i >= 0; ) {
+            handleFact(rc, Protocol.fact(bytes, i), fromRobot);
+        }
+    }
+
+    /**
+     * Handles a single enemy sighting, sent by a robot if fromRobot and by a tower otherwise
+     */
+    public static void handleFact(RobotController rc, int fact, boolean fromRobot) throws GameActionException{
+        learnFact(rc, fact, fromRobot);
+        switch (Protocol.factKind(fact)) {
+            case Protocol.KIND_ENEMY_TOWER: {
+                roundsWithoutEnemy = 0;
+                RobotPlayer.alertRobots = true;
+                MapInfo msg = Protocol.factTile(fact);
+                RobotPlayer.enemyTarget = msg;
+                enemyTower = msg;
+                enemyTowerRound = rc.getRoundNum();
+                break;
             }
-            else{
-                MapInfo msg = MapInfoCodec.decode(bytes);
-                // Check if message is enemy tower
-                if (msg.hasRuin()){
-                    roundsWithoutEnemy = 0;
-                    RobotPlayer.alertRobots = true;
-                    RobotPlayer.enemyTarget = msg;
-                    enemyTower = msg;
-                }
-                // Check if message is enemy paint
-                else if (msg.getPaint().isEnemy()){
-                    roundsWithoutEnemy = 0;
-                    if (Sensing.isRobot(rc, message.getSenderID())){
-                        broadcast = true;
-                        numEnemyVisits += 1; //   Increases probability of spawning a splasher
-                    }
-                    // If tower receives message from tower, just alert the surrounding bots to target the enemy
-                    // paint
-                    alertRobots = true;
-                    // Update enemy tile regardless
-                    enemyTarget = msg;
+            case Protocol.KIND_ENEMY_PAINT:
+            case Protocol.KIND_CONTESTED_RUIN: {
+                roundsWithoutEnemy = 0;
+                if (fromRobot){
+                    numEnemyVisits += 1; //   Increases probability of spawning a splasher
                 }
+                // If tower receives message from tower, just alert the surrounding bots to target the enemy
+                // paint
+                alertRobots = true;
+                // Update enemy tile regardless
+                enemyTarget = Protocol.factTile(fact);
+                break;
             }
         }
     }
@@ -4,34 +4,18 @@ import static v3.RobotPlayer.*;
 
 import battlecode.common.*;
 
-import java.util.ArrayList;
 
 public class Mopper extends Robot{
     public static void receiveLastMessage(RobotController rc) throws GameActionException {
         for(Message msg: rc.readMessages(-1)) {
             int bytes = msg.getBytes();
-            // Receives what type of mopper the bot is
-            if (bytes == 3){
-                continue;
-            }
-            if (Communication.isRobotInfo(bytes)) {
-                RobotInfo message = RobotInfoCodec.decode(bytes);
-            } else {
-                MapInfo message = MapInfoCodec.decode(bytes);
-                if (message.getPaint().isEnemy()) {
-                    MapLocation robotLoc = rc.getLocation();
-                    if (RobotPlayer.removePaint == null || robotLoc.distanceSquaredTo(message.getMapLocation()) < robotLoc.distanceSquaredTo(removePaint.getMapLocation())){
-                        removePaint = message;
-                        Robot.resetVariables();
-                    }
-                }
-                // If enemy tower, then go to enemy tower location
-                else if (message.hasRuin()) {
-                    MapLocation robotLoc = rc.getLocation();
-                    if (removePaint == null || robotLoc.distanceSquaredTo(message.getMapLocation()) < robotLoc.distanceSquaredTo(removePaint.getMapLocation())){
-                        removePaint = message;
-                        Robot.resetVariables();
-                    }
+            // Enemy paint and enemy towers are both worth going to, whichever is closest
+            for (int i = Protocol.numFacts(bytes); --i >= 0; ) {
+                int fact = Protocol.fact(bytes, i);
+                MapLocation robotLoc = rc.getLocation();
+                if (removePaint == null || Protocol.distanceSquaredTo(fact, robotLoc) < robotLoc.distanceSquaredTo(removePaint.getMapLocation())){
+                    removePaint = Protocol.factTile(fact);
+                    Robot.resetVariables();
                 }
             }
         }
@@ -41,6 +25,7 @@ public class Mopper extends Robot{
         MapLocation enemyLoc = enemyPaint.getMapLocation();
         if (rc.canAttack(enemyLoc) && enemyPaint.getPaint().isEnemy()){
             rc.attack(enemyLoc);
+            TurnContext.invalidate();
             removePaint = null;
             Robot.resetVariables();
         }
@@ -52,36 +37,135 @@ public class Mopper extends Robot{
         }
     }
 
+    // Scratch grid of tile scores around the mopper, offset (dx, dy) is cell (dx + GRID_RADIUS) * GRID_SIZE + dy + GRID_RADIUS.
+    // A cell only holds a score if its stamp is the current one, so the grid never needs clearing
+    static final int GRID_RADIUS = 5;
+    static final int GRID_SIZE = 2 * GRID_RADIUS + 1;
+    static int[] influence = new int[GRID_SIZE * GRID_SIZE];
+    static int[] influenceStamps = new int[GRID_SIZE * GRID_SIZE];
+    static int[] candidateStamps = new int[GRID_SIZE * GRID_SIZE];
+    static int[] candidates = new int[GRID_SIZE * GRID_SIZE];
+    static int scoringStamp = 0;
+
+    static final int ENEMY_ROBOT_SCORE = 100;
+    static final int STOLEN_PAINT_DIVISOR = 5;  // a point per this much paint the enemy robot could lose
+    static final int TOWER_RANGE_SCORE = -100;
+    static final int ENEMY_PAINT_SCORE = -50;
+
+    static void addInfluence(int cell, int score) {
+        if (influenceStamps[cell] != scoringStamp) {
+            influenceStamps[cell] = scoringStamp;
+            influence[cell] = score;
+        } else {
+            influence[cell] += score;
+        }
+    }
+
+    /**
+     * Returns the tile to stand on to mop enemy robots, or null if there is no enemy robot in sight
+     * Every enemy robot scores the tiles next to it by how much paint it has to steal, and every enemy tower
+     * takes away from the tiles it can attack, so the cost scales with the number of robots in sight.
+     * Tiles known to be impassable or taken by another robot are skipped, tiles with enemy paint score less and the
+     * closest tile wins ties
+     */
     public static MapLocation MopperScoring(RobotController rc) throws GameActionException {
-        MapInfo[] nearbyTiles = rc.senseNearbyMapInfos();
-        MapLocation best = null;
-        int bestScore = Integer.MIN_VALUE;
-        for (MapInfo map: nearbyTiles) {
-            int curr = 0;
-            RobotInfo bot = rc.senseRobotAtLocation(map.getMapLocation());
-            if (bot != null){
-                if (!bot.getTeam().isPlayer()){
-                    if (bot.type.isRobotType()){
-                        curr += 100;
+        MapLocation loc = rc.getLocation();
+        int numCandidates = 0;
+        scoringStamp++;
+        for (RobotInfo bot: TurnContext.nearbyRobots(rc, -1, rc.getTeam().opponent())) {
+            MapLocation botLoc = bot.getLocation();
+            int cx = botLoc.x - loc.x + GRID_RADIUS;
+            int cy = botLoc.y - loc.y + GRID_RADIUS;
+            if (bot.getType().isTowerType()) {
+                int range = bot.getType().actionRadiusSquared;
+                for (int dx = -3; dx <= 3; dx++) {
+                    int x = cx + dx;
+                    if (x < 0 || x >= GRID_SIZE) {
+                        continue;
                     }
-                    if (bot.type.isTowerType()){
-                        curr -= 100;
+                    for (int dy = -3; dy <= 3; dy++) {
+                        int y = cy + dy;
+                        if (y >= 0 && y < GRID_SIZE && dx * dx + dy * dy <= range) {
+                            addInfluence(x * GRID_SIZE + y, TOWER_RANGE_SCORE);
+                        }
+                    }
+                }
+            } else {
+                int score = ENEMY_ROBOT_SCORE + bot.getPaintAmount() / STOLEN_PAINT_DIVISOR;
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        if (dx == 0 && dy == 0) {
+                            continue;
+                        }
+                        int cell = (cx + dx) * GRID_SIZE + cy + dy;
+                        addInfluence(cell, score);
+                        if (candidateStamps[cell] != scoringStamp) {
+                            candidateStamps[cell] = scoringStamp;
+                            candidates[numCandidates++] = cell;
+                        }
                     }
                 }
             }
-            if (curr > bestScore){
-                best = map.getMapLocation();
-                bestScore = curr;
+        }
+        MapLocation best = null;
+        int bestScore = Integer.MIN_VALUE;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = numCandidates; --i >= 0; ) {
+            int cell = candidates[i];
+            int x = loc.x + cell / GRID_SIZE - GRID_RADIUS;
+            int y = loc.y + cell % GRID_SIZE - GRID_RADIUS;
+            if (!MapMemory.onTheMap(x, y)) {
+                continue;
+            }
+            int tile = MapMemory.tile(x, y);
+            if ((tile & MapMemory.SEEN) != 0 && (tile & MapMemory.PASSABLE) == 0) {
+                continue;
+            }
+            int score = influence[cell];
+            if (MapMemory.PAINT_TYPES[tile & MapMemory.PAINT_MASK].isEnemy()) {
+                score += ENEMY_PAINT_SCORE;
+            }
+            int distance = (x - loc.x) * (x - loc.x) + (y - loc.y) * (y - loc.y);
+            if (score > bestScore || (score == bestScore && distance < bestDistance)) {
+                // The mopper can't move onto a tile another robot stands on, but it can stay on its own
+                MapLocation candidate = new MapLocation(x, y);
+                if (distance != 0 && rc.canSenseRobotAtLocation(candidate)) {
+                    continue;
+                }
+                best = candidate;
+                bestScore = score;
+                bestDistance = distance;
             }
         }
         return best;
     }
+
+    // Bits of SWING_MASKS, one per swing direction
+    static final int SWING_NORTH = 1;
+    static final int SWING_EAST = 2;
+    static final int SWING_SOUTH = 4;
+    static final int SWING_WEST = 8;
+    // Swing direction of each bit of SWING_MASKS, lowest bit first
+    static final Direction[] SWING_DIRECTIONS = {Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST};
+    // SWING_MASKS[(dx + 2) * 5 + dy + 2] has the bits of the swings that hit offset (dx, dy) from the mopper.
+    // A swing covers the 3 tiles in front of the mopper and the 3 behind those, so every offset in
+    // [-2, 2] x [-2, 2] but the corners and the center is hit by one or two swings. One row per dx
+    static final int[] SWING_MASKS = {
+            0, 8, 8, 8, 0,
+            4, 12, 8, 9, 1,
+            4, 4, 0, 1, 1,
+            4, 6, 2, 3, 1,
+            0, 2, 2, 2, 0,
+    };
+
     /**
     swing if there is enemy bots nearby, do nothing otherwise
+    the direction that hits the most enemies wins, as long as it hits more than one
+    returns true if the mopper swung
      **/
-    public static void trySwing(RobotController rc) throws GameActionException {
+    public static boolean trySwing(RobotController rc) throws GameActionException {
         if (rc.getActionCooldownTurns() > 10){
-            return;
+            return false;
         }
         int north = 0;
         int east = 0;
@@ -89,74 +173,62 @@ public class Mopper extends Robot{
         int west = 0;
         MapLocation loc = rc.getLocation();
 
-        for (RobotInfo enemy: rc.senseNearbyRobots(2, rc.getTeam().opponent())){
-            if (loc.directionTo(enemy.getLocation()) == Direction.NORTH){
-                north++;
-            }
-            else if (loc.directionTo(enemy.getLocation()) == Direction.SOUTH){
-                south++;
-            }
-            else if (loc.directionTo(enemy.getLocation()) == Direction.WEST){
-                west++;
-            }
-            else if (loc.directionTo(enemy.getLocation()) == Direction.EAST){
-                east++;
-            }
-            else if (loc.directionTo(enemy.getLocation()) == Direction.NORTHWEST){
-                north++;
-                west++;
-            }
-            else if (loc.directionTo(enemy.getLocation()) == Direction.NORTHEAST){
-                north++;
-                east++;
-            }
-            else if (loc.directionTo(enemy.getLocation()) == Direction.SOUTHWEST){
-                south++;
-                west++;
-            }
-            else if (loc.directionTo(enemy.getLocation()) == Direction.SOUTHEAST){
-                south++;
-                east++;
-            }
+        for (RobotInfo enemy: TurnContext.nearbyRobots(rc, 8, rc.getTeam().opponent())){
+            MapLocation enemyLoc = enemy.getLocation();
+            int mask = SWING_MASKS[(enemyLoc.x - loc.x + 2) * 5 + enemyLoc.y - loc.y + 2];
+            north += mask & 1;
+            east += (mask >> 1) & 1;
+            south += (mask >> 2) & 1;
+            west += mask >> 3;
         }
+        Direction swing = null;
         if (north > 1 && north > east && north > south && north > west){
-            if (rc.canMopSwing(Direction.NORTH)){
-                rc.mopSwing(Direction.NORTH);
-            }
-            return;
+            swing = Direction.NORTH;
+        } else if (south > 1 && south > east && south > west){
+            swing = Direction.SOUTH;
+        } else if (east > 1 && east > west){
+            swing = Direction.EAST;
+        } else if (west > 1){
+            swing = Direction.WEST;
         }
-        if (south > 1 && south > east && south > west){
-            if (rc.canMopSwing(Direction.SOUTH)){
-                rc.mopSwing(Direction.SOUTH);
-            }
-            return;
-        }
-        if (east > 1 && east > west){
-            if (rc.canMopSwing(Direction.EAST)){
-                rc.mopSwing(Direction.EAST);
-            }
-            return;
+        if (swing != null && rc.canMopSwing(swing)){
+            rc.mopSwing(swing);
+            TurnContext.invalidate();
+            return true;
         }
-        if (west > 1){
-            if (rc.canMopSwing(Direction.WEST)){
-                rc.mopSwing(Direction.WEST);
+        return false;
+    }
+
+    /**
+     * Swings in the first direction that hits target, which must be within distance squared 8
+     * Returns true if the mopper swung
+     */
+    public static boolean swingAt(RobotController rc, MapLocation target) throws GameActionException {
+        MapLocation loc = rc.getLocation();
+        int mask = SWING_MASKS[(target.x - loc.x + 2) * 5 + target.y - loc.y + 2];
+        for (int i = 0; i < 4; i++) {
+            if ((mask & (1 << i)) != 0 && rc.canMopSwing(SWING_DIRECTIONS[i])) {
+                rc.mopSwing(SWING_DIRECTIONS[i]);
+                TurnContext.invalidate();
+                return true;
             }
         }
+        return false;
     }
 
     public static Direction mopperWalk(RobotController rc) throws GameActionException {
-        ArrayList<MapInfo> safe = new ArrayList<MapInfo>();
-
-        for (MapInfo map: rc.senseNearbyMapInfos(2)) {
-            if (map.getPaint().isAlly() && !last8.contains(map.getMapLocation())){
-                safe.add(map);
+        MapInfo[] safe = Sensing.movableTiles;
+        int numSafe = 0;
+        for (MapInfo map: TurnContext.nearbyMapInfos(rc, 2)) {
+            if (map.getPaint().isAlly() && !LocationHistory.contains(map.getMapLocation())){
+                safe[numSafe++] = map;
             }
         }
-        if (safe.isEmpty()){
+        if (numSafe == 0){
             return null;
         }
-        int index = (int) (Math.random()* safe.size());
-        MapInfo map = safe.get(index);
+        int index = Rng.nextInt(numSafe);
+        MapInfo map = safe[index];
         return rc.getLocation().directionTo(map.getMapLocation());
 
     }
@@ -0,0 +1,183 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Per-robot queue of outgoing messages that survives across turns
+ * Messages are addressed to a robot ID instead of a location, since the recipient may move before the message
+ * goes out. A new message to a robot that already has one of the same kind waiting replaces it, so a recipient
+ * never gets two versions of the same news. flush sends the highest priority messages first, the freshest first
+ * among equal priorities, until the per-round message limit is used up; the rest wait for later turns until
+ * they are MAX_AGE rounds old
+ */
+public class Outbox {
+    public static final int CAPACITY = 32;
+    // Messages that couldn't be sent within this many rounds are dropped
+    static final int MAX_AGE = 10;
+
+    // Priorities, higher goes first
+    public static final int PRIORITY_REMINDER = 0;
+    public static final int PRIORITY_ALERT = 1;
+    public static final int PRIORITY_REPORT = 2;
+    public static final int PRIORITY_ROLE = 3;
+
+    static int[] recipients = new int[CAPACITY];
+    static int[] messages = new int[CAPACITY];
+    static int[] priorities = new int[CAPACITY];
+    static int[] rounds = new int[CAPACITY];
+    // Order the messages were queued in, so the freshest of equal priority can be told apart within a round
+    static int[] sequence = new int[CAPACITY];
+    static int count = 0;
+    static int nextSequence = 0;
+
+    // Messages thrown away because the queue was full or they got too old
+    static int dropped = 0;
+    // Times a queued message had to wait for a later turn
+    static int deferred = 0;
+    static int sent = 0;
+
+    /**
+     * Messages that carry the same kind of news to the same robot replace each other
+     * Every enemy sighting message is one kind, whether it carries one fact or two
+     */
+    static int kind(int msg) {
+        return Protocol.numFacts(msg) > 0 ? Protocol.ENEMY_PAIR : Protocol.type(msg);
+    }
+
+    /**
+     * Queues msg for the robot with the given ID
+     */
+    public static void enqueue(RobotController rc, int recipientID, int msg, int priority) {
+        int round = rc.getRoundNum();
+        int kind = kind(msg);
+        for (int i = count; --i >= 0; ) {
+            if (recipients[i] == recipientID && kind(messages[i]) == kind) {
+                messages[i] = msg;
+                priorities[i] = Math.max(priorities[i], priority);
+                rounds[i] = round;
+                sequence[i] = nextSequence++;
+                return;
+            }
+        }
+        int slot = count;
+        if (count == CAPACITY) {
+            // Make room by dropping the least important message, the oldest one among equals
+            slot = 0;
+            for (int i = 1; i < CAPACITY; i++) {
+                if (priorities[i] < priorities[slot] || (priorities[i] == priorities[slot] && sequence[i] < sequence[slot])) {
+                    slot = i;
+                }
+            }
+            dropped++;
+            if (priorities[slot] > priority) {
+                return;
+            }
+        } else {
+            count++;
+        }
+        recipients[slot] = recipientID;
+        messages[slot] = msg;
+        priorities[slot] = priority;
+        rounds[slot] = round;
+        sequence[slot] = nextSequence++;
+    }
+
+    /**
+     * Queues msg for the robot at loc, if there is one
+     */
+    public static void enqueue(RobotController rc, MapLocation loc, int msg, int priority) throws GameActionException {
+        if (rc.canSenseRobotAtLocation(loc)) {
+            enqueue(rc, rc.senseRobotAtLocation(loc).getID(), msg, priority);
+        }
+    }
+
+    static void remove(int i) {
+        count--;
+        recipients[i] = recipients[count];
+        messages[i] = messages[count];
+        priorities[i] = priorities[count];
+        rounds[i] = rounds[count];
+        sequence[i] = sequence[count];
+    }
+
+    /**
+     * Removes message i during a flush and returns the tried mask with the message moved into slot i
+     * The last message takes the removed one's slot, so slot i counts as untried unless the last one was tried
+     */
+    static long removeTried(int i, long tried) {
+        int last = count - 1;
+        remove(i);
+        if ((tried & (1L << last)) == 0) {
+            tried &= ~(1L << i);
+        }
+        return tried;
+    }
+
+    /**
+     * Sends queued messages in priority order until the robot's message limit for the round is reached
+     * Returns the number of messages sent
+     */
+    public static int flush(RobotController rc) throws GameActionException {
+        if (count == 0) {
+            return 0;
+        }
+        int round = rc.getRoundNum();
+        for (int i = count; --i >= 0; ) {
+            if (round - rounds[i] > MAX_AGE) {
+                remove(i);
+                dropped++;
+            }
+        }
+        boolean isTower = rc.getType().isTowerType();
+        int limit = isTower ? GameConstants.MAX_MESSAGES_SENT_TOWER : GameConstants.MAX_MESSAGES_SENT_ROBOT;
+        int sentNow = 0;
+        // Bit i is set once message i was tried this call, so unreachable recipients are skipped
+        long tried = 0;
+        while (sentNow < limit) {
+            int best = -1;
+            for (int i = count; --i >= 0; ) {
+                if ((tried & (1L << i)) == 0 && (best == -1 || priorities[i] > priorities[best]
+                        || (priorities[i] == priorities[best] && sequence[i] > sequence[best]))) {
+                    best = i;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            tried |= 1L << best;
+            int id = recipients[best];
+            if (!rc.canSenseRobot(id)) {
+                continue;
+            }
+            RobotInfo recipient = rc.senseRobot(id);
+            if (recipient.getTeam() != rc.getTeam() || (isTower && recipient.getType().isTowerType())) {
+                // No message can ever reach this robot, so it shouldn't hold a slot until it expires
+                tried = removeTried(best, tried);
+                dropped++;
+                continue;
+            }
+            MapLocation loc = recipient.getLocation();
+            if (!rc.canSendMessage(loc, messages[best])) {
+                continue;
+            }
+            rc.sendMessage(loc, messages[best]);
+            sentNow++;
+            tried = removeTried(best, tried);
+        }
+        sent += sentNow;
+        deferred += count;
+        return sentNow;
+    }
+
+    /**
+     * Returns true if a message to the robot with the given ID is still waiting
+     */
+    public static boolean isQueued(int recipientID) {
+        for (int i = count; --i >= 0; ) {
+            if (recipients[i] == recipientID) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
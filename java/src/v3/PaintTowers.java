@@ -0,0 +1,140 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Directory of the allied paint towers a unit knows about, with the paint each had when last heard of
+ * Robots fill it from the towers they see and from TOWER_PAINT messages, towers from each other's broadcasts.
+ * Paint towers refill over time, so the paint of a tower that hasn't been seen in a while is estimated from
+ * the paint it had and how long ago that was. A tower that should be in sight but isn't is forgotten
+ */
+public class PaintTowers {
+    public static final int CAPACITY = 8;
+    // Paint a level one paint tower gains every round, a lower bound for the others
+    static final int PAINT_PER_ROUND = 5;
+    static final int MAX_PAINT = 1000;
+    // Rounds between a robot's requests for a paint tower
+    static final int REQUEST_PERIOD = 10;
+
+    // Entry i is the tower at locs[i] = x | y << 6, which had paints[i] paint on round rounds[i]
+    static int[] locs = new int[CAPACITY];
+    static int[] paints = new int[CAPACITY];
+    static int[] rounds = new int[CAPACITY];
+    static int count = 0;
+    // Round the robot last asked a tower where to refill
+    static int lastRequestRound = -REQUEST_PERIOD;
+
+    /**
+     * Records that the paint tower at loc had paint paint on round round
+     */
+    public static void observe(MapLocation loc, int paint, int round) {
+        int packed = loc.x | (loc.y << 6);
+        int slot = -1;
+        for (int i = count; --i >= 0; ) {
+            if (locs[i] == packed) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot == -1) {
+            if (count < CAPACITY) {
+                slot = count++;
+            } else {
+                // Forget the tower heard of longest ago
+                slot = 0;
+                for (int i = 1; i < CAPACITY; i++) {
+                    if (rounds[i] < rounds[slot]) {
+                        slot = i;
+                    }
+                }
+            }
+            locs[slot] = packed;
+        } else if (rounds[slot] > round) {
+            return;
+        }
+        paints[slot] = paint;
+        rounds[slot] = round;
+    }
+
+    static void remove(int i) {
+        count--;
+        locs[i] = locs[count];
+        paints[i] = paints[count];
+        rounds[i] = rounds[count];
+    }
+
+    public static MapLocation location(int i) {
+        return new MapLocation(locs[i] & 63, locs[i] >> 6);
+    }
+
+    /**
+     * Returns how much paint tower i probably has on round round
+     */
+    public static int estimate(int i, int round) {
+        return Math.min(paints[i] + PAINT_PER_ROUND * (round - rounds[i]), MAX_PAINT);
+    }
+
+    /**
+     * Updates the directory with the paint towers in sight and forgets the ones that should be in sight but aren't
+     */
+    public static void update(RobotController rc) throws GameActionException {
+        int round = rc.getRoundNum();
+        for (RobotInfo robot : TurnContext.nearbyRobots(rc, -1, rc.getTeam())) {
+            if (robot.getType().getBaseType() == UnitType.LEVEL_ONE_PAINT_TOWER) {
+                observe(robot.getLocation(), robot.getPaintAmount(), round);
+                RobotPlayer.seenPaintTower = true;
+            }
+        }
+        for (int i = count; --i >= 0; ) {
+            if (rounds[i] != round) {
+                MapLocation loc = location(i);
+                if (rc.canSenseLocation(loc) && !rc.canSenseRobotAtLocation(loc)) {
+                    remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tower to get need paint from when at loc, or -1 if no tower is known
+     * Towers that probably have enough paint are preferred, closest first, then the ones with the most paint.
+     * Towers the distance field shows to be unreachable are skipped
+     */
+    public static int best(MapLocation loc, int need, int round) {
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = count; --i >= 0; ) {
+            MapLocation tower = location(i);
+            if (FlowField.isUnreachable(tower, loc)) {
+                continue;
+            }
+            int paint = estimate(i, round);
+            int distance = loc.distanceSquaredTo(tower);
+            int score = paint >= need + Constants.MIN_PAINT_GIVE ? 10000000 - distance : paint * 1000 - distance;
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Asks an allied tower in sight where to refill, when the robot knows no paint tower
+     * The tower answers with a TOWER_PAINT message for the best paint tower it knows of
+     */
+    public static void requestDirections(RobotController rc) throws GameActionException {
+        int round = rc.getRoundNum();
+        if (round - lastRequestRound < REQUEST_PERIOD) {
+            return;
+        }
+        for (RobotInfo robot : TurnContext.nearbyRobots(rc, -1, rc.getTeam())) {
+            if (robot.getType().isTowerType()) {
+                int paintPercent = rc.getPaint() * 100 / rc.getType().paintCapacity;
+                Outbox.enqueue(rc, robot.getID(), Protocol.refillRequest(rc.getLocation(), paintPercent), Outbox.PRIORITY_ALERT);
+                lastRequestRound = round;
+                return;
+            }
+        }
+    }
+}
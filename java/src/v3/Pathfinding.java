@@ -8,7 +8,6 @@ import java.sql.SQLOutput;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.List;
 
 /**
  * Class for all movement & pathfinding-related methods
@@ -27,28 +26,28 @@ public class Pathfinding {
         int minDistance = -1;
         PaintType bestPaintType = PaintType.EMPTY;
         MapLocation curLocation = rc.getLocation();
-        MapInfo bestLocation = null;
+        MapLocation bestLocation = null;
         for (Direction dir: Constants.directions) {
             if (rc.canMove(dir)) {
-                MapInfo adjLocation = rc.senseMapInfo(curLocation.add(dir));
-                int distance = adjLocation.getMapLocation().distanceSquaredTo(target);
-                PaintType adjType = adjLocation.getPaint();
+                // Tiles next to the robot are refreshed in the map memory every turn
+                MapLocation adjLocation = curLocation.add(dir);
+                int distance = adjLocation.distanceSquaredTo(target);
+                PaintType adjType = MapMemory.paint(adjLocation);
                 if ((distance < minDistance || minDistance == -1)) {
                     minDistance = distance;
                     bestPaintType = adjType;
                     bestLocation = adjLocation;
                 } else if (distance == minDistance) {
-                    PaintType adjPaintType = adjLocation.getPaint();
-                    if ((bestPaintType.isEnemy() && !adjPaintType.isEnemy() ||
-                            bestPaintType == PaintType.EMPTY && adjPaintType.isAlly())) {
-                        bestPaintType = adjLocation.getPaint();
+                    if ((bestPaintType.isEnemy() && !adjType.isEnemy() ||
+                            bestPaintType == PaintType.EMPTY && adjType.isAlly())) {
+                        bestPaintType = adjType;
                         bestLocation = adjLocation;
                     }
                 }
             }
         }
         if (minDistance != -1) {
-            return curLocation.directionTo(bestLocation.getMapLocation());
+            return curLocation.directionTo(bestLocation);
         } else {
             return null;
         }
@@ -76,7 +75,7 @@ public class Pathfinding {
 
         Direction[] allDirections = Direction.allDirections();
         for (Direction dir: allDirections){
-            if (rc.canMove(dir) && !last8.contains(rc.getLocation().add(currDir))) {
+            if (rc.canMove(dir) && !LocationHistory.contains(rc.getLocation().add(currDir))) {
                 return dir;
             }
         }
@@ -101,20 +100,20 @@ public class Pathfinding {
         Direction left = currDir.rotateLeft();
         Direction right = currDir.rotateRight();
 
-        if (rc.canMove(currDir) && rc.senseMapInfo(rc.getLocation().add(currDir)).getPaint().isAlly()) {
+        if (rc.canMove(currDir) && MapMemory.paint(rc.getLocation().add(currDir)).isAlly()) {
             return currDir;
         }
-        else if (rc.canMove(left) && rc.senseMapInfo(rc.getLocation().add(left)).getPaint().isAlly()){
+        else if (rc.canMove(left) && MapMemory.paint(rc.getLocation().add(left)).isAlly()){
             return left;
         }
-        else if (rc.canMove(right) && rc.senseMapInfo(rc.getLocation().add(right)).getPaint().isAlly()) {
+        else if (rc.canMove(right) && MapMemory.paint(rc.getLocation().add(right)).isAlly()) {
             return right;
         }
 
         Direction[] allDirections = Direction.allDirections();
         for (Direction dir: allDirections){
             if (rc.canMove(dir)){
-                if (rc.senseMapInfo(rc.getLocation().add(dir)).getPaint().isAlly() && !last8.contains(rc.getLocation().add(currDir))) {
+                if (MapMemory.paint(rc.getLocation().add(dir)).isAlly() && !LocationHistory.contains(rc.getLocation().add(currDir))) {
                     return dir;
                 }
             }
@@ -136,34 +135,41 @@ public class Pathfinding {
         if (rc.getPaint() < 6){
             return paintedPathfind(rc, lastTower.getMapLocation());
         }
-        return pathfind(rc, lastTower.getMapLocation());
+        return fieldPathfind(rc, lastTower.getMapLocation());
     }
 
     /**
-     * Given an ArrayList of tiles to move to, randomly chooses a tile, weighted by how many tiles are unpainted & unoccupied
-     * in the 3x3 area centered at the tile behind the tile (relative to the robot)
-     * Returns null if everything appears painted or if validAdjacent is empty
+     * Pathfinds towards a far away target, following the distance field towards it once it reaches the robot
+     * and using the regular pathfind until then
      */
-    public static MapLocation tiebreakUnpainted(RobotController rc, List<MapInfo> validAdjacent) throws GameActionException{
+    public static Direction fieldPathfind(RobotController rc, MapLocation target) throws GameActionException {
+        Direction dir = FlowField.nextStep(rc, target);
+        if (dir != null) {
+            return dir;
+        }
+        return pathfind(rc, target);
+    }
+
+    // Running sums of the tile weights in tiebreakUnpainted
+    static int[] weightedAdjacent = new int[9];
+
+    /**
+     * Given the first numTiles tiles of validAdjacent to move to, randomly chooses a tile, weighted by how many tiles
+     * are unpainted & unoccupied in the 3x3 area centered at the tile behind the tile (relative to the robot)
+     * Returns null if everything appears painted or if numTiles is 0
+     */
+    public static MapLocation tiebreakUnpainted(RobotController rc, MapInfo[] validAdjacent, int numTiles) throws GameActionException{
         int cumSum = 0;
-        int numTiles = validAdjacent.size();
-        int[] weightedAdjacent = new int[numTiles];
         for (int i = 0; i < numTiles; i++){
-            MapLocation adjLocation = validAdjacent.get(i).getMapLocation();
+            MapLocation adjLocation = validAdjacent[i].getMapLocation();
             cumSum += 5*Sensing.countEmptyAround(rc, adjLocation.add(rc.getLocation().directionTo(adjLocation)));
             weightedAdjacent[i] = cumSum;
         }
         if (cumSum == 0) {
             return null;
         } else {
-            int randomValue = Constants.rng.nextInt(cumSum);
-            for (int i = 0; i < numTiles; i++) {
-                if (randomValue < weightedAdjacent[i]){
-                    return validAdjacent.get(i).getMapLocation();
-                }
-            }
+            return validAdjacent[Rng.pick(weightedAdjacent, numTiles)].getMapLocation();
         }
-        return null;
     }
 
     /**
@@ -173,20 +179,21 @@ public class Pathfinding {
      *      and pathfinds to a passable tile, chosen by tiebreakUnpainted
      */
     public static Direction exploreUnpainted(RobotController rc) throws GameActionException {
-        List<MapInfo> validAdjacent = Sensing.getMovableEmptyTiles(rc);
-        if (validAdjacent.isEmpty()){
+        MapInfo[] validAdjacent = Sensing.movableTiles;
+        int numTiles = Sensing.getMovableEmptyTiles(rc);
+        if (numTiles == 0){
             MapLocation curLoc = rc.getLocation();
             for (Direction dir: Constants.directions) {
                 MapLocation fartherLocation = curLoc.add(dir);
                 if (rc.onTheMap(fartherLocation)) {
                     MapInfo fartherInfo = rc.senseMapInfo(fartherLocation);
                     if (fartherInfo.isPassable()) {
-                        validAdjacent.add(fartherInfo);
+                        validAdjacent[numTiles++] = fartherInfo;
                     }
                 }
             }
         }
-        MapLocation bestLocation = tiebreakUnpainted(rc, validAdjacent);
+        MapLocation bestLocation = tiebreakUnpainted(rc, validAdjacent, numTiles);
         if (bestLocation == null) {
             return null;
         }
@@ -212,22 +219,23 @@ public class Pathfinding {
      */
     public static Direction betterExplore(RobotController rc, MapLocation curLocation, MapLocation target, boolean careAboutEnemy) throws GameActionException {
         int breakScore = 0;
+        Sensing.buildExploreGrids(rc);
         if (intermediateTarget != null) {
             MapLocation potentialBreak = new MapLocation(curLocation.x-2, curLocation.y-2);
             if (rc.onTheMap(potentialBreak)) {
-                breakScore = Sensing.scoreTile(rc, potentialBreak, false);
+                breakScore = Sensing.scoreExplore(potentialBreak, false);
             }
             potentialBreak = new MapLocation(curLocation.x+2, curLocation.y-2);
             if (rc.onTheMap(potentialBreak)) {
-                breakScore = Math.max(breakScore, Sensing.scoreTile(rc, potentialBreak, false));
+                breakScore = Math.max(breakScore, Sensing.scoreExplore(potentialBreak, false));
             }
             potentialBreak = new MapLocation(curLocation.x-2, curLocation.y+2);
             if (rc.onTheMap(potentialBreak)) {
-                breakScore = Math.max(breakScore, Sensing.scoreTile(rc, potentialBreak, false));
+                breakScore = Math.max(breakScore, Sensing.scoreExplore(potentialBreak, false));
             }
             potentialBreak = new MapLocation(curLocation.x+2, curLocation.y+2);
             if (rc.onTheMap(potentialBreak)) {
-                breakScore = Math.max(breakScore, Sensing.scoreTile(rc, potentialBreak, false));
+                breakScore = Math.max(breakScore, Sensing.scoreExplore(potentialBreak, false));
             }
             if (breakScore > 45) {
                 intermediateTarget = null;
@@ -246,13 +254,20 @@ public class Pathfinding {
             // Calculate a score for each target
             int minScore = -1;
             int[] weightedAdjacent = new int[8];
+            // Once the area around target has been seen, keep going towards unseen ground instead
+            if (Exploration.isExplored(target)) {
+                MapLocation frontier = Exploration.frontier(rc);
+                if (frontier != null) {
+                    target = frontier;
+                }
+            }
             int curDistance = curLocation.distanceSquaredTo(target);
             //too lazy to loop unroll but entirely possible
             for (int i = 0; i < 8; i++) {
                 int score = 0;
                 MapLocation possibleTarget = curLocation.translate(directions[i][0], directions[i][1]);
                 if (rc.onTheMap(possibleTarget)) {
-                    score = Sensing.scoreTile(rc, possibleTarget, careAboutEnemy);
+                    score = Sensing.scoreExplore(possibleTarget, careAboutEnemy);
                     int newDistance = possibleTarget.distanceSquaredTo(target);
                     if (curDistance > newDistance) {
                         score += 20;
@@ -280,12 +295,9 @@ public class Pathfinding {
             weightedAdjacent[7] -= minScore * 8;
 
             if (cumSum != 0) {
-                int randomValue = Constants.rng.nextInt(weightedAdjacent[7]);
-                for (int i = 0; i < 8; i++) {
-                    if (randomValue < weightedAdjacent[i]) {
-                        intermediateTarget = curLocation.translate(directions[i][0], directions[i][1]);
-                        break;
-                    }
+                int i = Rng.pick(weightedAdjacent, 8);
+                if (i != -1) {
+                    intermediateTarget = curLocation.translate(directions[i][0], directions[i][1]);
                 }
             }
         }
@@ -308,8 +320,8 @@ public class Pathfinding {
     public static Direction randomWalk(RobotController rc) throws GameActionException {
         Direction[] allDirections = Direction.allDirections();
         for(int i = 0; i < 5; i++){
-            Direction dir = allDirections[(int) (Math.random() * allDirections.length)];
-            if (rc.canMove(dir) && !last8.contains(rc.getLocation().add(dir))) {
+            Direction dir = allDirections[Rng.nextInt(allDirections.length)];
+            if (rc.canMove(dir) && !LocationHistory.contains(rc.getLocation().add(dir))) {
                 return dir;
             }
         }
@@ -318,7 +330,7 @@ public class Pathfinding {
     }
     public static Direction findOwnCorner(RobotController rc) throws GameActionException{
         rc.setIndicatorString("GETTING UNSTUCK " + oppositeCorner);
-        if (Math.random() < Constants.RANDOM_STEP_PROBABILITY){
+        if (Rng.nextDouble() < Constants.RANDOM_STEP_PROBABILITY){
             Direction randomDir = randomWalk(rc);
             if (randomDir != null) {
                 return randomDir;
@@ -327,7 +339,7 @@ public class Pathfinding {
         prevIntermediate = intermediateTarget;
         intermediateTarget = null;
         if (oppositeCorner == null || rc.getLocation().distanceSquaredTo(oppositeCorner) <= 8) {
-            double corner = Constants.rng.nextDouble();
+            double corner = Rng.nextDouble();
             int x = rc.getLocation().x;
             int y = rc.getLocation().y;
             int target_x = 0, target_y = 0;
@@ -356,7 +368,7 @@ public class Pathfinding {
      * Finds the furthest corner and move towards it
      */
     public static Direction getUnstuck(RobotController rc) throws GameActionException{
-        if (Math.random() < Constants.RANDOM_STEP_PROBABILITY){
+        if (Rng.nextDouble() < Constants.RANDOM_STEP_PROBABILITY){
             return randomWalk(rc);
         }
         else {
@@ -384,7 +396,13 @@ public class Pathfinding {
         prevIntermediate = intermediateTarget;
         intermediateTarget = null;
         if (oppositeCorner == null || rc.getLocation().distanceSquaredTo(oppositeCorner) <= 20) {
-            double corner = Constants.rng.nextDouble();
+            // Go to the enemy's copy of this spot under a symmetry the map may have, unless it is close by
+            MapLocation mirrored = Symmetry.randomMirror(rc.getLocation());
+            if (rc.getLocation().distanceSquaredTo(mirrored) > 20) {
+                oppositeCorner = mirrored;
+                return pathfind(rc, oppositeCorner);
+            }
+            double corner = Rng.nextDouble();
             int x = rc.getLocation().x;
             int y = rc.getLocation().y;
             int target_x = 0, target_y = 0;
@@ -420,7 +438,7 @@ public class Pathfinding {
                 return dir;
             } else {
                 if (rc.canSenseRobotAtLocation(rc.getLocation().add(dir))) {
-                    if (Constants.rng.nextDouble() >= 0.8) {
+                    if (Rng.nextDouble() >= 0.8) {
                         //treat robot as passable 20% of the time
                         return null;
                     }
@@ -526,6 +544,9 @@ public class Pathfinding {
     }
 
     public static Direction pathfind(RobotController rc, MapLocation target) throws GameActionException{
+        // Every return ends the profiled call itself, since a wrapper or a finally would cost bytecode even
+        // with profiling off
+        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.PATHFIND);
         MapLocation curLocation = rc.getLocation();
         int dist = curLocation.distanceSquaredTo(target);
         if (dist == 0){
@@ -539,6 +560,11 @@ public class Pathfinding {
             } else {
                 closestPath = dist;
             }
+            if (Profiler.ENABLED) {
+                Direction dir = lessOriginalPathfind(rc, target);
+                Profiler.end(rc, Profiler.PATHFIND);
+                return dir;
+            }
             return lessOriginalPathfind(rc, target);
         }
         else if (inBugNav){
@@ -550,51 +576,64 @@ public class Pathfinding {
 //                inBugNav = false;
 //                closestPath = -1;
 //                tracingDir = null;
+                if (Profiler.ENABLED) Profiler.end(rc, Profiler.PATHFIND);
                 return null;
             }
-            // Otherwise, just call bugnav
-            return bug1(rc, acrossWall);
+            // Otherwise, take a shortest path inside the search window, heading straight for the target if
+            // it is close enough, and only trace walls with bugnav when the window has no way through
+            MapLocation goal = LocalBFS.inWindow(curLocation, target) ? target : acrossWall;
+            Direction dir = LocalBFS.firstStep(rc, goal);
+            if (dir == null) {
+                dir = bug1(rc, acrossWall);
+            }
+            if (Profiler.ENABLED) Profiler.end(rc, Profiler.PATHFIND);
+            return dir;
         }
         else {
             inBugNav = true;
             stuckTurnCount = 0;
             Direction toTarget = curLocation.directionTo(target);
             MapLocation newLoc = curLocation.add(toTarget);
-            if (rc.canSenseLocation(newLoc)){
-                if (rc.senseMapInfo(newLoc).isWall()){
+            // Walls never change, so anything the robot remembers seeing counts
+            if (MapMemory.isSeen(newLoc)){
+                if (MapMemory.isWall(newLoc)){
                     newLoc = newLoc.add(toTarget);
-                    if (rc.canSenseLocation(newLoc)){
-                        if (rc.senseMapInfo(newLoc).isWall()) {
+                    if (MapMemory.isSeen(newLoc)){
+                        if (MapMemory.isWall(newLoc)) {
                             newLoc = newLoc.add(toTarget);
-                            if (rc.canSenseLocation(newLoc)) {
-                                if (!rc.senseMapInfo(newLoc).isWall()) {
+                            if (MapMemory.isSeen(newLoc)) {
+                                if (!MapMemory.isWall(newLoc)) {
                                     acrossWall = newLoc;
+                                    if (Profiler.ENABLED) Profiler.end(rc, Profiler.PATHFIND);
                                     return null;
                                 }
                             }
                         }
                         else{
                             acrossWall = newLoc;
+                            if (Profiler.ENABLED) Profiler.end(rc, Profiler.PATHFIND);
                             return null;
                         }
                     }
                 }
                 else{
                     acrossWall = newLoc;
+                    if (Profiler.ENABLED) Profiler.end(rc, Profiler.PATHFIND);
                     return null;
                 }
             }
             acrossWall = target;
+            if (Profiler.ENABLED) Profiler.end(rc, Profiler.PATHFIND);
             return null;
         }
     }
 
     public static Direction randomPaintedWalk(RobotController rc) throws GameActionException{
-        List<MapInfo> allDirections = Sensing.getMovablePaintedTiles(rc);
-        if (allDirections.isEmpty()){
+        int numTiles = Sensing.getMovablePaintedTiles(rc);
+        if (numTiles == 0){
             return null;
         }
-        Direction dir = rc.getLocation().directionTo(allDirections.get((int) (Math.random() * allDirections.size())).getMapLocation());
+        Direction dir = rc.getLocation().directionTo(Sensing.movableTiles[Rng.nextInt(numTiles)].getMapLocation());
         if (rc.canMove(dir)) {
             return dir;
         }
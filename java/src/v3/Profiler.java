@@ -0,0 +1,118 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Opt-in bytecode profiler for the hot entry points of v3
+ * Every call site is guarded by `if (Profiler.ENABLED)`, and since ENABLED is a compile-time constant
+ * javac drops the guarded code entirely, so a build with profiling off pays nothing for it.
+ * Each robot keeps a fixed-size histogram of bytecode per call for every method and prints
+ * p50/p95/max on DUMP_ROUND. Robots don't share statics, so the histograms are per robot and
+ * the report is tagged with the robot's unit type
+ */
+public class Profiler {
+    public static final boolean ENABLED = false;
+    // Round on which every living robot prints its report
+    public static final int DUMP_ROUND = 1999;
+
+    // Profiled methods
+    public static final int RUN_SOLDIER = 0;
+    public static final int RUN_MOPPER = 1;
+    public static final int RUN_SPLASHER = 2;
+    public static final int RUN_TOWER = 3;
+    public static final int PATHFIND = 4;
+    public static final int SCORE_SPLASHER_TILES = 5;
+    public static final int FILL_IN_RUIN = 6;
+    public static final int MESSAGES = 7;
+    public static final int NUM_METHODS = 8;
+    static final String[] NAMES = {"runSoldier", "runMopper", "runSplasher", "runTower",
+            "Pathfinding.pathfind", "Sensing.scoreSplasherTiles", "Soldier.fillInRuin", "messages"};
+
+    // Histogram buckets are BUCKET_WIDTH bytecode wide, the last one also holds everything above
+    // Calls that ran past the end of the turn can't be measured and go straight into the last bucket
+    static final int BUCKET_WIDTH = 250;
+    static final int NUM_BUCKETS = 100;
+
+    static int[] histograms = new int[NUM_METHODS * NUM_BUCKETS];
+    static int[] calls = new int[NUM_METHODS];
+    static int[] max = new int[NUM_METHODS];
+    static int[] overruns = new int[NUM_METHODS];
+    static int[] startBytecode = new int[NUM_METHODS];
+    static int[] startRound = new int[NUM_METHODS];
+    static boolean dumped = false;
+
+    /**
+     * Prints the report once DUMP_ROUND is reached
+     * Meant to be called once at the start of every turn
+     */
+    public static void tick(RobotController rc) {
+        if (rc.getRoundNum() >= DUMP_ROUND && !dumped) {
+            dumped = true;
+            dump(rc);
+        }
+    }
+
+    /**
+     * Marks the start of a call to method
+     */
+    public static void begin(RobotController rc, int method) {
+        startRound[method] = rc.getRoundNum();
+        startBytecode[method] = Clock.getBytecodeNum();
+    }
+
+    /**
+     * Marks the end of a call to method and records how much bytecode it used
+     */
+    public static void end(RobotController rc, int method) {
+        int used = Clock.getBytecodeNum() - startBytecode[method];
+        int bucket;
+        if (startRound[method] != rc.getRoundNum() || used < 0) {
+            // The turn ended somewhere inside the call
+            overruns[method]++;
+            bucket = NUM_BUCKETS - 1;
+        } else {
+            bucket = Math.min(used / BUCKET_WIDTH, NUM_BUCKETS - 1);
+            if (used > max[method]) {
+                max[method] = used;
+            }
+        }
+        histograms[method * NUM_BUCKETS + bucket]++;
+        calls[method]++;
+    }
+
+    /**
+     * Returns the upper edge of the bucket holding the given percentile of the calls to method
+     */
+    static int percentile(int method, int percent) {
+        int target = (calls[method] * percent + 99) / 100;
+        int seen = 0;
+        int base = method * NUM_BUCKETS;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            seen += histograms[base + bucket];
+            if (seen >= target) {
+                return (bucket + 1) * BUCKET_WIDTH;
+            }
+        }
+        return NUM_BUCKETS * BUCKET_WIDTH;
+    }
+
+    /**
+     * Prints p50/p95/max of every method that was called at least once
+     */
+    public static void dump(RobotController rc) {
+        for (int method = 0; method < NUM_METHODS; method++) {
+            if (calls[method] == 0) {
+                continue;
+            }
+            System.out.println("PROFILE " + rc.getType() + " " + NAMES[method]
+                    + " calls=" + calls[method]
+                    + " p50<=" + percentile(method, 50)
+                    + " p95<=" + percentile(method, 95)
+                    + " max=" + max[method]
+                    + " overruns=" + overruns[method]);
+        }
+        System.out.println("PROFILE " + rc.getType() + " outbox sent=" + Outbox.sent
+                + " dropped=" + Outbox.dropped + " deferred=" + Outbox.deferred
+                + " relaysSuppressed=" + RelayCache.suppressed);
+    }
+}
@@ -0,0 +1,204 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Message schema shared by every v3 unit
+ * Every message is tttt pppppppp pppppppp pppppppp pppp: a 4-bit type in the top bits and a 28-bit payload
+ * whose layout depends on the type, so receivers switch on type(msg) instead of guessing from the value.
+ * Type 0 is never sent, so an all-zero message is never valid, and type 5 is free
+ *
+ * ENEMY_TOWER, ENEMY_PAINT: payload is the tile in MapInfoCodec's 21-bit layout, so the MapInfoCodec
+ *                           field accessors work directly on the message
+ * ROLE_ASSIGN:              ____ ____ ____ ____ __ss srrr    r = ROLE_*, s = Symmetry candidates of the tower
+ * SYMMETRY:                 ____ ____ ____ ____ ____ _sss    s = Symmetry candidates of the sender
+ * TOWER_PAINT:              ____ ___p pppp ppyy yyyy xxxxxx  p = paint / 16 of the paint tower at (x, y)
+ * REFILL_REQUEST:           ____ ___p pppp ppyy yyyy xxxxxx  p = paint percent of the robot at (x, y)
+ * ENEMY_PAIR:               BBBBBBBBBBBBBB AAAAAAAAAAAAAA  two facts A and B
+ * ENEMY_FACT:               ______________ AAAAAAAAAAAAAA  a single fact A
+ *
+ * Enemy sightings are also handled as facts, kkyyyyyyxxxxxx with k = KIND_*, so that two of them fit in one
+ * ENEMY_PAIR message. Receivers go through numFacts and fact, which treat ENEMY_TOWER and ENEMY_PAINT
+ * messages as a single fact, so they don't need to care which form a sender used.
+ * A contested ruin is a ruin with enemy paint in its pattern, and only exists as a fact
+ */
+public class Protocol {
+    public static final int TYPE_SHIFT = 28;
+    public static final int PAYLOAD_MASK = (1 << TYPE_SHIFT) - 1;
+
+    // Message types
+    public static final int ENEMY_TOWER = 1;
+    public static final int ENEMY_PAINT = 2;
+    public static final int ROLE_ASSIGN = 3;
+    public static final int REFILL_REQUEST = 4;
+    public static final int ENEMY_PAIR = 6;
+    public static final int ENEMY_FACT = 7;
+    public static final int SYMMETRY = 8;
+    public static final int TOWER_PAINT = 9;
+
+    // Roles a tower gives to the units it spawns, also what the tower's spawn queue holds
+    public static final int ROLE_DEVELOP = 0;
+    public static final int ROLE_ADVANCE = 1;
+    public static final int ROLE_ATTACK = 2;
+    public static final int ROLE_MOPPER = 3;
+    public static final int ROLE_SPLASHER = 4;
+
+    // Kinds of facts
+    public static final int KIND_ENEMY_TOWER = 0;
+    public static final int KIND_ENEMY_PAINT = 1;
+    public static final int KIND_CONTESTED_RUIN = 2;
+    public static final int NUM_KINDS = 3;
+    public static final int FACT_BITS = 14;
+    public static final int FACT_MASK = (1 << FACT_BITS) - 1;
+
+    public static int type(int msg) {
+        return msg >>> TYPE_SHIFT;
+    }
+
+    public static int payload(int msg) {
+        return msg & PAYLOAD_MASK;
+    }
+
+    public static int x(int msg) {
+        return msg & 63;
+    }
+
+    public static int y(int msg) {
+        return (msg >> 6) & 63;
+    }
+
+    public static MapLocation location(int msg) {
+        return new MapLocation(msg & 63, (msg >> 6) & 63);
+    }
+
+    /**
+     * Encodes a sighting of an enemy tile as ENEMY_TOWER if it has a ruin and ENEMY_PAINT otherwise
+     */
+    public static int enemyTile(MapInfo tile) {
+        return ((tile.hasRuin() ? ENEMY_TOWER : ENEMY_PAINT) << TYPE_SHIFT) | MapInfoCodec.encode(tile);
+    }
+
+    /**
+     * Encodes two enemy sightings into one ENEMY_PAIR message, or just the first one if the second is
+     * missing or at the same location
+     */
+    public static int enemyTiles(MapInfo first, MapInfo second) {
+        if (second == null || second.getMapLocation().equals(first.getMapLocation())) {
+            return enemyTile(first);
+        }
+        return (ENEMY_PAIR << TYPE_SHIFT) | (fact(second) << FACT_BITS) | fact(first);
+    }
+
+    /**
+     * Returns the fact describing an enemy sighting
+     */
+    public static int fact(MapInfo tile) {
+        MapLocation loc = tile.getMapLocation();
+        return ((tile.hasRuin() ? KIND_ENEMY_TOWER : KIND_ENEMY_PAINT) << 12) | (loc.y << 6) | loc.x;
+    }
+
+    /**
+     * Returns the fact of kind at loc
+     */
+    public static int fact(int kind, MapLocation loc) {
+        return (kind << 12) | (loc.y << 6) | loc.x;
+    }
+
+    /**
+     * Packs two facts into one ENEMY_PAIR message, or just first into an ENEMY_FACT message if second is -1
+     */
+    public static int facts(int first, int second) {
+        if (second == -1 || second == first) {
+            return (ENEMY_FACT << TYPE_SHIFT) | first;
+        }
+        return (ENEMY_PAIR << TYPE_SHIFT) | (second << FACT_BITS) | first;
+    }
+
+    /**
+     * Returns how many facts msg carries
+     */
+    public static int numFacts(int msg) {
+        switch (msg >>> TYPE_SHIFT) {
+            case ENEMY_TOWER:
+            case ENEMY_PAINT:
+            case ENEMY_FACT:
+                return 1;
+            case ENEMY_PAIR:
+                return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns fact i of msg, for i below numFacts(msg)
+     */
+    public static int fact(int msg, int i) {
+        switch (msg >>> TYPE_SHIFT) {
+            case ENEMY_TOWER:
+                return (KIND_ENEMY_TOWER << 12) | (msg & 4095);
+            case ENEMY_PAINT:
+                return (KIND_ENEMY_PAINT << 12) | (msg & 4095);
+        }
+        return (msg >> (i * FACT_BITS)) & FACT_MASK;
+    }
+
+    public static int factKind(int fact) {
+        return fact >> 12;
+    }
+
+    /**
+     * Returns the squared distance from loc to the location of fact
+     */
+    public static int distanceSquaredTo(int fact, MapLocation loc) {
+        int dx = (fact & 63) - loc.x;
+        int dy = ((fact >> 6) & 63) - loc.y;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Materializes fact as the MapInfo the rest of the code stores sightings as
+     */
+    public static MapInfo factTile(int fact) {
+        MapLocation loc = new MapLocation(fact & 63, (fact >> 6) & 63);
+        if (fact >> 12 == KIND_ENEMY_TOWER) {
+            return new MapInfo(loc, false, false, PaintType.EMPTY, PaintType.EMPTY, true, false);
+        }
+        return new MapInfo(loc, true, false, PaintType.ENEMY_PRIMARY, PaintType.EMPTY, false, false);
+    }
+
+    public static int roleAssign(int role, int symmetry) {
+        return (ROLE_ASSIGN << TYPE_SHIFT) | (symmetry << 3) | role;
+    }
+
+    public static int role(int msg) {
+        return msg & 7;
+    }
+
+    public static int roleSymmetry(int msg) {
+        return (msg >> 3) & 7;
+    }
+
+    public static int symmetry(int candidates) {
+        return (SYMMETRY << TYPE_SHIFT) | candidates;
+    }
+
+    public static int symmetryMask(int msg) {
+        return msg & 7;
+    }
+
+    public static int refillRequest(MapLocation loc, int paintPercent) {
+        return (REFILL_REQUEST << TYPE_SHIFT) | (paintPercent << 12) | (loc.y << 6) | loc.x;
+    }
+
+    public static int paintPercent(int msg) {
+        return (msg >> 12) & 127;
+    }
+
+    public static int towerPaint(MapLocation tower, int paint) {
+        return (TOWER_PAINT << TYPE_SHIFT) | (Math.min(paint >> 4, 127) << 12) | (tower.y << 6) | tower.x;
+    }
+
+    public static int towerPaintAmount(int msg) {
+        return ((msg >> 12) & 127) << 4;
+    }
+}
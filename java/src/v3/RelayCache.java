@@ -0,0 +1,73 @@
+package v3;
+
+/**
+ * Tower-side memory of the enemy sightings that were recently relayed to the other towers
+ * Sightings are grouped into BUCKET_SIZE x BUCKET_SIZE buckets of the map, so several robots reporting the same
+ * area only make the tower relay once every TTL rounds. Sightings relayed by other towers are recorded as well,
+ * so a report that every tower has already heard about isn't relayed again. The cache is a ring of the last
+ * CAPACITY buckets, so the oldest entry is overwritten when it is full
+ */
+public class RelayCache {
+    public static final int CAPACITY = 16;
+    public static final int BUCKET_SHIFT = 2;
+    public static final int BUCKET_SIZE = 1 << BUCKET_SHIFT;
+    // Rounds during which a relayed bucket isn't relayed again
+    public static final int TTL = 20;
+
+    // Entries are kind << 8 | bucket y << 4 | bucket x, with the round they were relayed
+    static int[] keys = new int[CAPACITY];
+    static int[] rounds = new int[CAPACITY];
+    static int head = 0;
+    static int size = 0;
+
+    // Reports that were not relayed because their bucket already was
+    static int suppressed = 0;
+
+    static int key(int fact) {
+        int bx = (fact & 63) >> BUCKET_SHIFT;
+        int by = ((fact >> 6) & 63) >> BUCKET_SHIFT;
+        return (Protocol.factKind(fact) << 8) | (by << 4) | bx;
+    }
+
+    /**
+     * Returns the slot holding the bucket of fact if it was relayed in the last TTL rounds, or -1
+     */
+    static int find(int key, int round) {
+        for (int i = size; --i >= 0; ) {
+            if (keys[i] == key && round - rounds[i] <= TTL) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remembers that the bucket of fact was relayed this round
+     */
+    public static void record(int round, int fact) {
+        int key = key(fact);
+        int slot = find(key, round);
+        if (slot == -1) {
+            slot = head;
+            head = (head + 1) % CAPACITY;
+            if (size < CAPACITY) {
+                size++;
+            }
+            keys[slot] = key;
+        }
+        rounds[slot] = round;
+    }
+
+    /**
+     * Returns true if fact should be relayed to the other towers, and records it if so
+     * Facts in a bucket that was relayed in the last TTL rounds are merged into that relay
+     */
+    public static boolean shouldRelay(int round, int fact) {
+        if (find(key(fact), round) != -1) {
+            suppressed++;
+            return false;
+        }
+        record(round, fact);
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package v3;
+
+/**
+ * Cheap deterministic random numbers for every v3 unit
+ * A 32-bit xorshift generator seeded from the unit's ID and spawn round, so a match replays with the same
+ * choices and bytecode use, at a few bytecodes per draw instead of a call into java.util.Random.
+ * Changing GLOBAL_SEED gives every unit a different but still reproducible sequence for benchmarking
+ */
+public class Rng {
+    public static final int GLOBAL_SEED = 0;
+
+    static int state = 0x9E3779B9;
+
+    /**
+     * Seeds the generator for the unit with the given ID, spawned on the given round
+     */
+    public static void seed(int id, int round) {
+        // Spread the inputs over all 32 bits so neighbouring IDs don't start with similar sequences
+        int x = id * 0x9E3779B9 + round * 0x85EBCA6B + GLOBAL_SEED;
+        x ^= x >>> 16;
+        x *= 0x7FEB352D;
+        x ^= x >>> 15;
+        x *= 0x846CA68B;
+        x ^= x >>> 16;
+        // An all zero state would only ever produce zeros
+        state = x == 0 ? 0x9E3779B9 : x;
+    }
+
+    public static int next() {
+        int x = state;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        state = x;
+        return x;
+    }
+
+    /**
+     * Returns a number in [0, bound), bound must be positive
+     */
+    public static int nextInt(int bound) {
+        return (int) (((next() & 0xFFFFFFFFL) * bound) >>> 32);
+    }
+
+    /**
+     * Returns a number in [0, 1)
+     */
+    public static double nextDouble() {
+        return (next() >>> 8) * 0x1.0p-24;
+    }
+
+    /**
+     * Returns the first index i < n with a random number in [0, cumulative[n - 1]) below cumulative[i],
+     * which picks index i with probability proportional to its weight. Returns -1 if the weights sum to 0 or less
+     */
+    public static int pick(int[] cumulative, int n) {
+        int total = cumulative[n - 1];
+        if (total <= 0) {
+            return -1;
+        }
+        int value = nextInt(total);
+        for (int i = 0; i < n; i++) {
+            if (value < cumulative[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -13,21 +13,25 @@ public abstract class Robot {
     public static void lowPaintBehavior(RobotController rc) throws GameActionException {
         isLowPaint = true;
         // If last tower is null, then just random walk on paint
-        for (RobotInfo enemyRobot : rc.senseNearbyRobots(-1, rc.getTeam().opponent())) {
+        for (RobotInfo enemyRobot : TurnContext.nearbyRobots(rc, -1, rc.getTeam().opponent())) {
             if (enemyRobot.getType().isTowerType()) {
                 if (rc.canAttack(enemyRobot.getLocation())) {
                     rc.attack(enemyRobot.getLocation());
+                    TurnContext.invalidate();
                     break;
                 }
             }
         }
         if (lastTower == null){
+            PaintTowers.requestDirections(rc);
             Direction moveTo = Pathfinding.randomPaintedWalk(rc);
             if (moveTo != null && rc.canMove(moveTo)){
                 rc.move(moveTo);
             }
             return;
         }
+        // Keep the way back building even on turns spent on painted tiles only
+        FlowField.request(rc, lastTower.getMapLocation());
         Direction dir = Pathfinding.returnToTower(rc);
         if (dir != null){
             rc.move(dir);
@@ -40,10 +44,12 @@ public abstract class Robot {
             int towerPaint = rc.senseRobotAtLocation(towerLocation).paintAmount;
             if (rc.getPaint() < 5 && rc.canTransferPaint(towerLocation, -towerPaint) && towerPaint > Constants.MIN_PAINT_GIVE){
                 rc.transferPaint(towerLocation, -towerPaint);
+                TurnContext.invalidate();
             }
         }
         if (rc.canTransferPaint(towerLocation, amtToTransfer)) {
             rc.transferPaint(towerLocation, amtToTransfer);
+            TurnContext.invalidate();
         }
     }
     /**
@@ -59,30 +65,19 @@ public abstract class Robot {
     }
 
     /**
-     * Updates the lastTower variable to any allied paint tower currently in range
+     * Updates the lastTower variable to the allied paint tower the robot should refill at, out of the ones it knows
      */
     public static void updateLastPaintTower(RobotController rc) throws GameActionException {
-        int min_distance = -1;
-        MapInfo lastTower = null;
-        for (MapInfo loc: rc.senseNearbyMapInfos()) {
-            if (checkAlliedTower(rc, loc)) {
-                UnitType towerType = rc.senseRobotAtLocation(loc.getMapLocation()).getType();
-                if (towerType.getBaseType() == UnitType.LEVEL_ONE_PAINT_TOWER.getBaseType())
-                {
-                    seenPaintTower = true;
-                    int distance = loc.getMapLocation().distanceSquaredTo(rc.getLocation());
-                    if (min_distance == -1 || min_distance > distance){
-                        lastTower = loc;
-                        min_distance = distance;
-                    }
-                }
-            }
-        }
-        if (min_distance != -1){
-            RobotPlayer.lastTower = lastTower;
+        PaintTowers.update(rc);
+        int best = PaintTowers.best(rc.getLocation(), rc.getType().paintCapacity - rc.getPaint(), rc.getRoundNum());
+        if (best == -1) {
+            lastTower = null;
+            return;
         }
-        else if (lastTower != null && lastTower.getMapLocation().isWithinDistanceSquared(rc.getLocation(), 20)){
-            RobotPlayer.lastTower = null;
+        MapLocation towerLocation = PaintTowers.location(best);
+        if (lastTower == null || !lastTower.getMapLocation().equals(towerLocation) || rc.canSenseLocation(towerLocation)) {
+            lastTower = rc.canSenseLocation(towerLocation) ? rc.senseMapInfo(towerLocation)
+                    : new MapInfo(towerLocation, false, false, PaintType.EMPTY, PaintType.EMPTY, true, false);
         }
     }
 
@@ -107,11 +102,11 @@ public abstract class Robot {
         }
         double probDefense = Math.min(1, (double)(rc.getNumberTowers())/(rc.getMapHeight()+rc.getMapWidth())*5);
         double probFromCenter = 1-2.5*(Math.abs(rc.getMapWidth() / 2 - ruinLocation.x) + Math.abs(rc.getMapHeight() / 2 - ruinLocation.y))/(rc.getMapHeight()+rc.getMapWidth());
-        double haha = Constants.rng.nextDouble();
+        double haha = Rng.nextDouble();
         if (haha < probDefense*probFromCenter){
             return UnitType.LEVEL_ONE_DEFENSE_TOWER;
         }
-        double hehe = Constants.rng.nextDouble();
+        double hehe = Rng.nextDouble();
         return ((hehe < Math.min((rc.getNumberTowers())/Math.sqrt(rc.getMapHeight()+rc.getMapWidth()), Constants.PERCENT_PAINT)) ? UnitType.LEVEL_ONE_PAINT_TOWER : UnitType.LEVEL_ONE_MONEY_TOWER);
     }
 
@@ -122,12 +117,15 @@ public abstract class Robot {
     public static void completeRuinIfPossible(RobotController rc, MapLocation ruinLocation) throws GameActionException {
         if (rc.canCompleteTowerPattern(UnitType.LEVEL_ONE_MONEY_TOWER, ruinLocation)) {
             rc.completeTowerPattern(UnitType.LEVEL_ONE_MONEY_TOWER, ruinLocation);
+            TurnContext.invalidate();
         }
         if (rc.canCompleteTowerPattern(UnitType.LEVEL_ONE_PAINT_TOWER, ruinLocation)) {
             rc.completeTowerPattern(UnitType.LEVEL_ONE_PAINT_TOWER, ruinLocation);
+            TurnContext.invalidate();
         }
         if (rc.canCompleteTowerPattern(UnitType.LEVEL_ONE_DEFENSE_TOWER, ruinLocation)) {
             rc.completeTowerPattern(UnitType.LEVEL_ONE_DEFENSE_TOWER, ruinLocation);
+            TurnContext.invalidate();
         }
     }
     /**
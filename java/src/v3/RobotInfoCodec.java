@@ -57,14 +57,47 @@ public class RobotInfoCodec {
         int locationMask = (1 << 6) - 1;
         int x = i & locationMask;
         int y = (i >> 6) & locationMask;
-        UnitType unitType = UnitType.values()[(i >> 12) & ((1 << 4) - 1)];
+        UnitType unitType = UNIT_TYPES[(i >> 12) & ((1 << 4) - 1)];
         int healthPercent = (i >> 16) & ((1 << 7) - 1);
-        Team team = Team.values()[(i >> 23) & 1];
+        Team team = TEAMS[(i >> 23) & 1];
         int paintPercent = (i >> 24) & ((1 << 7) - 1); // TODO finish me, equals.
         return new RobotInfo(0, team, unitType, (int)Math.ceil (((unitType.health / 100.0) * healthPercent)),
                 new MapLocation(x, y), (int)Math.ceil (((unitType.paintCapacity / 100.0) * paintPercent)) );
     }
 
+    // Field accessors that read a single field straight from an encoded RobotInfo without creating any objects
+
+    static final UnitType[] UNIT_TYPES = UnitType.values();
+    static final Team[] TEAMS = Team.values();
+
+    public static int x(int i) {
+        return i & 63;
+    }
+
+    public static int y(int i) {
+        return (i >> 6) & 63;
+    }
+
+    public static UnitType unitType(int i) {
+        return UNIT_TYPES[(i >> 12) & 15];
+    }
+
+    public static int healthPercent(int i) {
+        return (i >> 16) & 127;
+    }
+
+    public static Team team(int i) {
+        return TEAMS[(i >> 23) & 1];
+    }
+
+    public static int paintPercent(int i) {
+        return (i >> 24) & 127;
+    }
+
+    public static MapLocation location(int i) {
+        return new MapLocation(i & 63, (i >> 6) & 63);
+    }
+
     public static boolean equals(RobotInfo a, RobotInfo b) {
         return a.getLocation().equals(b.getLocation()) &&
                 a.getType() == b.getType() && a.getTeam() == b.getTeam() &&
@@ -47,8 +47,6 @@ public class RobotPlayer {
      */
     // Initialization Variables
     static int turnCount = 0;
-    static int[][] currGrid;
-    static ArrayList<MapLocation> last8 = new ArrayList<MapLocation>(); // Acts as queue
     static MapInfo lastTower = null;
     static SoldierType soldierType = SoldierType.ADVANCE;
 
@@ -69,9 +67,12 @@ public class RobotPlayer {
 
     // Key Soldier Location variables
     static MapInfo enemyTile = null; // location of an enemy paint/tower for a develop/advance robot to report
+    static MapInfo enemyPaintTile = null; // enemy paint seen next to a reported enemy tower, sent in the same message
+    static MapLocation contestedRuin = null; // ruin whose pattern has the reported enemy paint in it, sent in the same message
     static MapLocation ruinToFill = null; // location of a ruin that the soldier is filling in
     static MapLocation wanderTarget = null; // target for advance robot to pathfind towards during exploration
     static MapInfo enemyTower = null; // location of enemy tower for attack soldiers to pathfind to
+    static int enemyTowerRound = 0; // round a tower last heard about enemyTower
     static UnitType fillTowerType = null;
     static MapLocation intermediateTarget = null; // used to record short-term robot targets
     static MapLocation prevIntermediate = null; //Copy of intermediate target
@@ -95,7 +96,6 @@ public class RobotPlayer {
     static int botRoundNum = 0;
 
     // Towers Broadcasting Variables
-    static boolean broadcast = false;
     static boolean alertRobots = false;
     static boolean alertAttackSoldiers = false;
 
@@ -130,7 +130,7 @@ public class RobotPlayer {
         // Hello world! Standard output is very useful for debugging.
         // Everything you say here will be directly viewable in your terminal when you run a match!
         // You can also use indicators to save debug notes in replays.
-        currGrid = new int[rc.getMapWidth()][rc.getMapHeight()];
+        Rng.seed(rc.getID(), rc.getRoundNum());
         while (true) {
             // This code runs during the entire lifespan of the robot, which is why it is in an infinite
             // loop. If we ever leave this loop and return from run(), the robot dies! At the end of the
@@ -147,40 +147,52 @@ public class RobotPlayer {
                 // use different strategies on different robots. If you wish, you are free to rewrite
                 // this into a different control structure!
 
-                // Updates the grid each robot can see
-//                for (MapInfo mi : rc.senseNearbyMapInfos()) {
-//                    currGrid[mi.getMapLocation().y][mi.getMapLocation().x] = mi;
-//                }
                 roundNum = rc.getRoundNum();
                 botRoundNum += 1;
+                TurnContext.update(rc);
+                // Updates the tiles each robot remembers with what it can see this turn
+                MapMemory.update(rc);
+                if (Profiler.ENABLED) Profiler.tick(rc);
                 if (soldierMsgCooldown != -1) {
                     soldierMsgCooldown--;
                 }
 
                 switch (rc.getType()) {
                     case SOLDIER:
+                        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.RUN_SOLDIER);
                         runSoldier(rc);
+                        if (Profiler.ENABLED) Profiler.end(rc, Profiler.RUN_SOLDIER);
                         break;
                     case MOPPER:
+                        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.RUN_MOPPER);
                         runMopper(rc);
+                        if (Profiler.ENABLED) Profiler.end(rc, Profiler.RUN_MOPPER);
                         break;
                     case SPLASHER:
+                        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.RUN_SPLASHER);
                         runSplasher(rc);
+                        if (Profiler.ENABLED) Profiler.end(rc, Profiler.RUN_SPLASHER);
                         break;
                     default:
+                        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.RUN_TOWER);
                         runTower(rc);
+                        if (Profiler.ENABLED) Profiler.end(rc, Profiler.RUN_TOWER);
                         break;
                 }
                 if (roundNum != rc.getRoundNum()) {
                     System.out.println("I WENT OVER BYTECODE LIMIT BRUH");
                 }
-                // Update the last eight locations list
-                if (last8.size() < 16) {
-                    last8.add(rc.getLocation());
-                } else {
-                    last8.removeFirst();
-                    last8.add(rc.getLocation());
+                // Update the recent locations history
+                LocationHistory.record(rc.getLocation());
+
+                // Send what is queued, within the round's message limit
+                if (rc.getType().isRobotType()) {
+                    Symmetry.report(rc);
                 }
+                Outbox.flush(rc);
+
+                // Spend whatever bytecode is left on optional work
+                Scheduler.run(rc);
             }
             catch (GameActionException e) {
                 // Oh no! It looks like we did something illegal in the Battlecode world. You should
@@ -217,43 +229,55 @@ public class RobotPlayer {
         }
 
         roundsWithoutEnemy += 1; //  Update rounds without enemy
+        Tower.readNewMessages(rc);
         if (rc.getType().getBaseType() == UnitType.LEVEL_ONE_MONEY_TOWER || rc.getType().getBaseType() == UnitType.LEVEL_TWO_MONEY_TOWER) {
-            MoneyTower.readNewMessages(rc);
             if (rc.getPaint() == 500) {
-                spawnQueue.add(0);
+                spawnQueue.add(Protocol.ROLE_DEVELOP);
             }
-        } else {
-            Tower.readNewMessages(rc);
         }
 
         // starting condition
         if (rc.getRoundNum() == 1 ) {
             rc.buildRobot(UnitType.SOLDIER, rc.getLocation().add(spawnDirection));
+            TurnContext.invalidate();
         } else if (rc.getRoundNum() == 2) {
             MapLocation center = new MapLocation(rc.getMapWidth() / 2, rc.getMapHeight() / 2);
             if (!rc.getLocation().isWithinDistanceSquared(center, 150)) {
                 int enemyTiles = Tower.countEnemyPaint(rc);
                 if ((rc.getType() == UnitType.LEVEL_ONE_MONEY_TOWER || rc.getType() == UnitType.LEVEL_TWO_MONEY_TOWER) && enemyTiles > 3) {
-                    spawnQueue.add(3);
+                    spawnQueue.add(Protocol.ROLE_MOPPER);
                 }
                 else{
                     rc.buildRobot(UnitType.SOLDIER, rc.getLocation().add(spawnDirection.rotateRight()));
+                    TurnContext.invalidate();
                 }
             } else {
                 int enemyTiles = Tower.countEnemyPaint(rc);
                 if (enemyTiles == 0 || enemyTiles > 20){
                     rc.buildRobot(UnitType.SPLASHER, rc.getLocation().add(spawnDirection.rotateRight()));
+                    TurnContext.invalidate();
                 }
                 else{
                     rc.buildRobot(UnitType.MOPPER, rc.getLocation().add(spawnDirection.rotateRight()));
+                    TurnContext.invalidate();
                     if (spawnQueue.isEmpty() && (rc.getType() == UnitType.LEVEL_ONE_MONEY_TOWER || rc.getType() == UnitType.LEVEL_TWO_MONEY_TOWER))
-                        spawnQueue.add(3);
+                        spawnQueue.add(Protocol.ROLE_MOPPER);
                 }
             }
         } else {
-            if (broadcast){
-                rc.broadcastMessage(MapInfoCodec.encode(enemyTarget));
-                broadcast = false;
+            boolean isPaintTower = rc.getType().getBaseType() == UnitType.LEVEL_ONE_PAINT_TOWER;
+            if (isPaintTower) {
+                PaintTowers.observe(rc.getLocation(), rc.getPaint(), rc.getRoundNum());
+            }
+            // Pass on what the other towers haven't heard yet
+            if (Gossip.hasDelta() && rc.canBroadcastMessage()){
+                rc.broadcastMessage(Gossip.delta());
+            } else if (Symmetry.changed && rc.canBroadcastMessage()) {
+                rc.broadcastMessage(Protocol.symmetry(Symmetry.candidates));
+                Symmetry.changed = false;
+            } else if (isPaintTower && rc.getRoundNum() % Constants.TOWER_PAINT_PERIOD == 0 && rc.canBroadcastMessage()) {
+                // Let the other towers know where robots can refill
+                rc.broadcastMessage(Protocol.towerPaint(rc.getLocation(), rc.getPaint()));
             }
 
             // If unit has been spawned and communication hasn't happened yet
@@ -264,13 +288,13 @@ public class RobotPlayer {
             // Otherwise, if the spawn queue isn't empty, spawn the required unit
             else if (!spawnQueue.isEmpty() && (rc.getMoney() > 400 || (rc.getType() != UnitType.LEVEL_ONE_PAINT_TOWER && rc.getType() != UnitType.LEVEL_TWO_PAINT_TOWER && rc.getType() != UnitType.LEVEL_THREE_PAINT_TOWER))) {
                 switch (spawnQueue.getFirst()) {
-                    case 0, 1, 2:
+                    case Protocol.ROLE_DEVELOP, Protocol.ROLE_ADVANCE, Protocol.ROLE_ATTACK:
                         Tower.createSoldier(rc);
                         break;
-                    case 3:
+                    case Protocol.ROLE_MOPPER:
                         Tower.createMopper(rc);
                         break;
-                    case 4:
+                    case Protocol.ROLE_SPLASHER:
                         Tower.createSplasher(rc);
                         break;
                 }
@@ -314,14 +338,19 @@ public class RobotPlayer {
      * This code is wrapped inside the infinite loop in run(), so it is called once per turn.
      */
     public static void runSoldier(RobotController rc) throws GameActionException {
+        // Let the scheduler check which ruins in vision can be built on with spare bytecode
+        Scheduler.schedule(Scheduler.RUIN_EVAL);
+
         // Update locations of last known towers
         Soldier.updateLastPaintTower(rc);
 
         // Read incoming messages
+        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.MESSAGES);
         Soldier.readNewMessages(rc);
+        if (Profiler.ENABLED) Profiler.end(rc, Profiler.MESSAGES);
       
         // Sense information about all visible nearby tiles.
-        MapInfo[] nearbyTiles = rc.senseNearbyMapInfos();
+        MapInfo[] nearbyTiles = TurnContext.nearbyMapInfos(rc);
 
         // Get current location
         MapLocation initLocation = rc.getLocation();
@@ -329,13 +358,14 @@ public class RobotPlayer {
         // On round 1, just paint tile it is on
         if (botRoundNum == 1) {
             Soldier.paintIfPossible(rc, rc.getLocation());
-            wanderTarget = new MapLocation(rc.getMapWidth() - rc.getLocation().x, rc.getMapHeight() - rc.getLocation().y);
+            // Head for where the enemy's copy of this spot is
+            wanderTarget = Symmetry.mirror(rc.getLocation());
         }
 
         // Hard coded robot type for very first exploration
         if (rc.getRoundNum() <= 3) {
             soldierType = SoldierType.BINLADEN;
-            wanderTarget = new MapLocation(rc.getMapWidth() - rc.getLocation().x, rc.getMapHeight() - rc.getLocation().y);
+            wanderTarget = Symmetry.mirror(rc.getLocation());
         }
 
         switch (soldierType) {
@@ -391,7 +421,7 @@ public class RobotPlayer {
             case SoldierType.DEVELOP: {
                 Soldier.updateState(rc, initLocation, nearbyTiles);
                 Helper.tryCompleteResourcePattern(rc);
-                RobotInfo[] nearbyBots = rc.senseNearbyRobots();
+                RobotInfo[] nearbyBots = TurnContext.nearbyRobots(rc);
                 boolean seesEnemy = false;
                 for (RobotInfo nearbyBot : nearbyBots) {
                     if (nearbyBot.getTeam().opponent() == rc.getTeam()){
@@ -528,6 +558,7 @@ public class RobotPlayer {
                     MapLocation enemyTowerLoc = enemyTower.getMapLocation();
                     if (rc.canSenseRobotAtLocation(enemyTowerLoc) && rc.canAttack(enemyTowerLoc)) {
                         rc.attack(enemyTowerLoc);
+                        TurnContext.invalidate();
                         Direction back = enemyTowerLoc.directionTo(rc.getLocation());
                         if (rc.canMove(back)){
                             rc.move(back);
@@ -543,11 +574,12 @@ public class RobotPlayer {
                             }
                         }
                     } else {
-                        Direction dir = Pathfinding.pathfind(rc, enemyTowerLoc);
+                        Direction dir = Pathfinding.fieldPathfind(rc, enemyTowerLoc);
                         if (dir != null) {
                             rc.move(dir);
                             if (rc.canAttack(enemyTowerLoc)){
                                 rc.attack(enemyTowerLoc);
+                                TurnContext.invalidate();
                             }
                         }
                         // If tower not there anymore when we see it, set enemyTower to null
@@ -566,7 +598,7 @@ public class RobotPlayer {
                 Helper.tryCompleteResourcePattern(rc);
                 // if stuck for too long, become attack bot
                 // See if there are enemies nearby, if so, turn to advance bot
-                RobotInfo[] nearbyBots = rc.senseNearbyRobots();
+                RobotInfo[] nearbyBots = TurnContext.nearbyRobots(rc);
                 boolean seesEnemy = false;
                 for (RobotInfo nearbyBot : nearbyBots) {
                     if (nearbyBot.getTeam().opponent() == rc.getTeam()){
@@ -593,13 +625,14 @@ public class RobotPlayer {
                             // if a nearby allied tile mismatches the SRP grid, paint over it
                             boolean hasPainted = false;
                             if (rc.getActionCooldownTurns() < 10) {
-                                for (MapInfo attackableTile : rc.senseNearbyMapInfos(20)) {
+                                for (MapInfo attackableTile : TurnContext.nearbyMapInfos(rc, 20)) {
                                     MapLocation nearbyLocation = attackableTile.getMapLocation();
                                     PaintType paint = Helper.resourcePatternType(rc, nearbyLocation);
                                     if (attackableTile.getPaint() == PaintType.EMPTY && attackableTile.isPassable() ||
                                             attackableTile.getPaint().isAlly() && !paint.equals(attackableTile.getPaint())) {
                                         if (rc.canAttack(nearbyLocation)) {
                                             rc.attack(nearbyLocation, (paint == PaintType.ALLY_SECONDARY));
+                                            TurnContext.invalidate();
                                             hasPainted = true;
                                             break;
                                         }
@@ -669,7 +702,7 @@ public class RobotPlayer {
                                         turnToSRP = false;
                                         break;
                                     }
-                                    boolean isPrimary = Constants.primarySRP.contains(new HashableCoords(i, j));
+                                    boolean isPrimary = Constants.isPrimarySRP(i, j);
                                     if ((srpLoc.getPaint() == PaintType.ALLY_PRIMARY && isPrimary) || (srpLoc.getPaint() == PaintType.ALLY_SECONDARY && !isPrimary)) {
                                         allSame = false;
                                     }
@@ -703,13 +736,9 @@ public class RobotPlayer {
             rc.setIndicatorString("null");
         }
         // Read input messages for information on enemy tile location
+        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.MESSAGES);
         Splasher.receiveLastMessage(rc);
-
-        if (lastTower != null && rc.canSenseLocation(lastTower.getMapLocation())){
-            if (!rc.canSenseRobotAtLocation(lastTower.getMapLocation())) {
-                lastTower = null;
-            }
-        }
+        if (Profiler.ENABLED) Profiler.end(rc, Profiler.MESSAGES);
 
         // Update last paint tower location
         Soldier.updateLastPaintTower(rc);
@@ -736,7 +765,7 @@ public class RobotPlayer {
         }
 
         // move perpendicular to enemy towers if any exists in range
-        for (RobotInfo bot: rc.senseNearbyRobots()){
+        for (RobotInfo bot: TurnContext.nearbyRobots(rc)){
             if (bot.getType().isTowerType() && !bot.getTeam().equals(rc.getTeam())){
                 Direction dir = rc.getLocation().directionTo(bot.getLocation()).rotateRight().rotateRight().rotateRight();
                 if (rc.canMove(dir)) {
@@ -747,7 +776,9 @@ public class RobotPlayer {
                 }
             }
         }
+        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.SCORE_SPLASHER_TILES);
         MapInfo enemies = Sensing.scoreSplasherTiles(rc);
+        if (Profiler.ENABLED) Profiler.end(rc, Profiler.SCORE_SPLASHER_TILES);
 
         // Check to see if assigned tile is already filled in with our paint
         // Prevents splasher from painting already painted tiles
@@ -759,6 +790,7 @@ public class RobotPlayer {
 
         if (enemies != null && rc.canAttack(enemies.getMapLocation())){
             rc.attack(enemies.getMapLocation());
+            TurnContext.invalidate();
             return;
         }
         else if (enemies != null){
@@ -776,6 +808,7 @@ public class RobotPlayer {
         else if (removePaint != null) {
             if (rc.canAttack(removePaint.getMapLocation())) {
                 rc.attack(removePaint.getMapLocation());
+                TurnContext.invalidate();
                 return;
             }
             Direction dir = Pathfinding.pathfind(rc, removePaint.getMapLocation());
@@ -804,23 +837,24 @@ public class RobotPlayer {
         }
         if (botRoundNum == 3 && rc.senseMapInfo(rc.getLocation()).getPaint().isEnemy()){
             rc.attack(rc.getLocation());
+            TurnContext.invalidate();
             return;
         }
         // Read all incoming messages
+        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.MESSAGES);
         Mopper.receiveLastMessage(rc);
+        if (Profiler.ENABLED) Profiler.end(rc, Profiler.MESSAGES);
         Helper.tryCompleteResourcePattern(rc);
 
-        MapInfo[] all = rc.senseNearbyMapInfos();
         // avoid enemy towers with the highest priority
-        for (MapInfo nearbyTile : all) {
-            RobotInfo bot = rc.senseRobotAtLocation(nearbyTile.getMapLocation());
-            if (bot != null && bot.getType().isTowerType() && !bot.getTeam().equals(rc.getTeam())){
+        for (RobotInfo bot : TurnContext.nearbyRobots(rc, -1, rc.getTeam().opponent())) {
+            if (bot.getType().isTowerType()){
                 if (removePaint != null && removePaint.getMapLocation().distanceSquaredTo(bot.getLocation()) <= 9){
                     removePaint = null; // ignore target in tower range
                 }
 
                 // move around the tower by rotating 135 degrees
-                Direction dir = rc.getLocation().directionTo(nearbyTile.getMapLocation()).rotateRight().rotateRight().rotateRight();
+                Direction dir = rc.getLocation().directionTo(bot.getLocation()).rotateRight().rotateRight().rotateRight();
                 if (rc.canMove(dir)){
                     rc.move(dir);
                     break;
@@ -835,33 +869,24 @@ public class RobotPlayer {
             }
         }
 
-        MapLocation currPaint = null;
         // check around the Mopper's attack radius for bots
-        for (MapInfo tile: rc.senseNearbyMapInfos(2)) {
-            RobotInfo bot = rc.senseRobotAtLocation(tile.getMapLocation());
-            if (bot != null){
-                if (bot.getType().isRobotType() && !bot.getTeam().equals(rc.getTeam()) && bot.getPaintAmount() > 0){
-                    if (tile.getPaint().isEnemy() && rc.canAttack(tile.getMapLocation())){
-                        rc.attack(tile.getMapLocation());
-                    }
-                    Direction dir = rc.getLocation().directionTo(bot.location);
-                    switch (dir){
-                        case Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST:
-                            if (rc.canMopSwing(dir)){
-                                rc.mopSwing(dir);
-                                oppositeCorner = null;
-
-                            }
-                        default:
-                            if (rc.canMopSwing(dir.rotateRight())){
-                                rc.mopSwing(dir.rotateRight());
-                                oppositeCorner = null;
-                            }
-                    }
-                    return;
+        for (RobotInfo bot: TurnContext.nearbyRobots(rc, 2, rc.getTeam().opponent())) {
+            if (bot.getType().isRobotType() && bot.getPaintAmount() > 0){
+                MapLocation botLoc = bot.getLocation();
+                if (rc.canAttack(botLoc) && rc.senseMapInfo(botLoc).getPaint().isEnemy()){
+                    rc.attack(botLoc);
+                    TurnContext.invalidate();
+                }
+                // Swing where it hits the most enemies, or at least this one
+                if (Mopper.trySwing(rc) || Mopper.swingAt(rc, botLoc)){
+                    oppositeCorner = null;
                 }
+                return;
             }
+        }
 
+        MapLocation currPaint = null;
+        for (MapInfo tile: TurnContext.nearbyMapInfos(rc, 2)) {
             if (tile.getPaint().isEnemy()) {
                 if (rc.canAttack(tile.getMapLocation())) {
                     currPaint = tile.getMapLocation();
@@ -870,25 +895,23 @@ public class RobotPlayer {
             }
         }
 
-        // move towards opponent bot in vision range
-        for (MapInfo tile: rc.senseNearbyMapInfos()){
-            // First check for enemy tile, store it
-            if (tile.getPaint().isEnemy()){
-                oppositeCorner = null;
-                if (currPaint == null){
+        // First check for enemy tile, store it
+        if (currPaint == null) {
+            for (MapInfo tile: TurnContext.nearbyMapInfos(rc)){
+                if (tile.getPaint().isEnemy()){
+                    oppositeCorner = null;
                     currPaint = tile.getMapLocation();
+                    break;
                 }
             }
-            RobotInfo bot = rc.senseRobotAtLocation(tile.getMapLocation());
-            if (bot != null ){
-                if (bot.getType().isRobotType() && !bot.getTeam().equals(rc.getTeam()) && !tile.getPaint().isEnemy()){
-                    Direction enemyDir = Pathfinding.pathfind(rc, tile.getMapLocation());
-                    if (enemyDir != null){
-                        oppositeCorner = null;
-                        rc.move(enemyDir);
-                        break;
-                    }
-                }
+        }
+        // move towards the best tile to mop opponent bots in vision range from
+        MapLocation mopFrom = Mopper.MopperScoring(rc);
+        if (mopFrom != null && !mopFrom.equals(rc.getLocation())){
+            Direction enemyDir = Pathfinding.pathfind(rc, mopFrom);
+            if (enemyDir != null){
+                oppositeCorner = null;
+                rc.move(enemyDir);
             }
         }
         // attack nearest paint if exists with lower priority
@@ -896,6 +919,7 @@ public class RobotPlayer {
             if (rc.canAttack(currPaint)){
                 oppositeCorner = null;
                 rc.attack(currPaint);
+                TurnContext.invalidate();
                 return;
             } else if (rc.isActionReady()){
                 Direction dir = Pathfinding.pathfind(rc, currPaint);
@@ -904,6 +928,7 @@ public class RobotPlayer {
                     rc.move(dir);
                     if (rc.canAttack(currPaint)){
                         rc.attack(currPaint);
+                        TurnContext.invalidate();
                     }
                 }
             }
@@ -0,0 +1,137 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * What the robot knows about every ruin in the map memory, indexed like MapMemory.ruins
+ * Each ruin has a state and the rounds its two checks last ran. The expensive check, sweeping the 5x5 pattern
+ * for enemy paint, only runs again when the map memory saw paint change inside the pattern or after
+ * PATTERN_STALE_ROUNDS. Looking for a tower on the ruin and ally robots next to it is cheap and goes stale
+ * quickly, so it runs again every round. Ruins out of sight keep the state they were last seen in
+ */
+public class RuinRegistry {
+    public static final int UNKNOWN = 0;
+    public static final int UNCLAIMED = 1;
+    public static final int BUILDING = 2;       // an ally robot is next to it
+    public static final int BUILT = 3;          // a tower stands on it
+    public static final int CONTAMINATED = 4;   // enemy paint in its pattern
+
+    static final int PATTERN_STALE_ROUNDS = 10;
+
+    static int[] states = new int[128];
+    static int[] patternRounds = new int[128];
+    static int[] adjacencyRounds = new int[128];
+    static boolean[] contaminated = new boolean[128];
+    // Set when an ally robot was next to the ruin at the last adjacency check, whatever the pattern looks like
+    static boolean[] allyAdjacent = new boolean[128];
+    // Set when paint changed inside the ruin's pattern since the last sweep
+    static boolean[] patternChanged = new boolean[128];
+
+    // For every tile, 1 + the indices of up to two ruins whose pattern covers it, one per byte (0 if none)
+    static int[] patternOwners = null;
+
+    /**
+     * Registers ruin number index of the map memory, found at loc
+     */
+    public static void add(int index, MapLocation loc) {
+        int width = MapMemory.width;
+        int height = MapMemory.height;
+        if (patternOwners == null) {
+            patternOwners = new int[width * height];
+        }
+        for (int y = Math.max(loc.y - 2, 0); y <= Math.min(loc.y + 2, height - 1); y++) {
+            for (int x = Math.max(loc.x - 2, 0); x <= Math.min(loc.x + 2, width - 1); x++) {
+                int owners = patternOwners[x + y * width];
+                patternOwners[x + y * width] = (owners & 0xFF) == 0 ? index + 1 : (owners & 0xFF) | ((index + 1) << 8);
+            }
+        }
+    }
+
+    /**
+     * Called by the map memory when the paint of the tile at tileIndex changed
+     */
+    public static void onPaintChanged(int tileIndex) {
+        int owners = patternOwners[tileIndex];
+        if (owners != 0) {
+            patternChanged[(owners & 0xFF) - 1] = true;
+            if (owners > 0xFF) {
+                patternChanged[(owners >> 8) - 1] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the map memory index of the ruin at loc, or -1 if it isn't known
+     */
+    public static int indexOf(MapLocation loc) {
+        for (int i = MapMemory.numRuins; --i >= 0; ) {
+            if (MapMemory.ruins[i].equals(loc)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the state of ruin number index, re-checking it first if it is in sight and out of date
+     */
+    public static int state(RobotController rc, int index) throws GameActionException {
+        MapLocation ruin = MapMemory.ruins[index];
+        int round = rc.getRoundNum();
+        boolean patternStale = patternChanged[index] || patternRounds[index] == 0
+                || round - patternRounds[index] > PATTERN_STALE_ROUNDS;
+        boolean adjacencyStale = adjacencyRounds[index] != round;
+        if ((patternStale || adjacencyStale) && rc.canSenseLocation(ruin)) {
+            int state;
+            if (rc.canSenseRobotAtLocation(ruin)) {
+                state = BUILT;
+                // The pattern only matters again once the tower is destroyed, and is swept then
+                patternChanged[index] = true;
+            } else {
+                if (patternStale) {
+                    contaminated[index] = !Sensing.canBuildTower(rc, ruin);
+                    patternChanged[index] = false;
+                    patternRounds[index] = round;
+                }
+                allyAdjacent[index] = rc.senseNearbyRobots(ruin, 2, rc.getTeam()).length > 0;
+                if (contaminated[index]) {
+                    state = CONTAMINATED;
+                } else if (allyAdjacent[index]) {
+                    state = BUILDING;
+                } else {
+                    state = UNCLAIMED;
+                }
+            }
+            states[index] = state;
+            adjacencyRounds[index] = round;
+        }
+        return states[index];
+    }
+
+    /**
+     * Returns true if an ally robot was next to ruin number index when state last checked it
+     * A contaminated ruin reports CONTAMINATED even when an ally is already working on it
+     */
+    public static boolean hasAllyAdjacent(int index) {
+        return allyAdjacent[index];
+    }
+
+    /**
+     * Returns true if a tower may still be built at ruin number index: nothing stands on it and its pattern is clean
+     */
+    public static boolean canBuild(RobotController rc, int index) throws GameActionException {
+        int state = state(rc, index);
+        return state == UNCLAIMED || state == BUILDING;
+    }
+
+    /**
+     * Same as canBuild, for a ruin given by location; ruins that aren't registered are checked directly
+     */
+    public static boolean canBuild(RobotController rc, MapLocation ruin) throws GameActionException {
+        int index = indexOf(ruin);
+        if (index == -1) {
+            return Sensing.canBuildTower(rc, ruin);
+        }
+        return canBuild(rc, index);
+    }
+}
@@ -0,0 +1,75 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Cooperative scheduler for optional work that can be spread out over several turns
+ * Jobs are scheduled by whoever has work for them and run at the end of the turn, highest priority first,
+ * only while more than Constants.BYTECODE_RESERVE bytecode is left. A job that runs out of budget keeps
+ * its progress and stays pending, so it resumes on a later turn
+ */
+public class Scheduler {
+    // Job ids, lower ids have higher priority
+    public static final int MESSAGES = 0;
+    public static final int MAP_MEMORY = 1;
+    public static final int RUIN_EVAL = 2;
+    public static final int FLOW_FIELD = 3;
+    public static final int SYMMETRY = 4;
+    public static final int EXPLORATION = 5;
+    public static final int NUM_JOBS = 6;
+
+    static boolean[] pending = new boolean[NUM_JOBS];
+
+    /**
+     * Marks job as having work to do
+     */
+    public static void schedule(int job) {
+        pending[job] = true;
+    }
+
+    /**
+     * Returns true if there is enough bytecode left this turn for optional work
+     */
+    public static boolean hasBudget() {
+        return Clock.getBytecodesLeft() > Constants.BYTECODE_RESERVE;
+    }
+
+    /**
+     * Runs pending jobs in priority order until they are done or the budget runs out
+     * Meant to be called once at the very end of the turn
+     */
+    public static void run(RobotController rc) throws GameActionException {
+        for (int job = 0; job < NUM_JOBS; job++) {
+            if (!pending[job]) {
+                continue;
+            }
+            if (!hasBudget()) {
+                return;
+            }
+            if (runJob(rc, job)) {
+                pending[job] = false;
+            }
+        }
+    }
+
+    /**
+     * Runs a slice of job, returns true if it has nothing left to do
+     */
+    static boolean runJob(RobotController rc, int job) throws GameActionException {
+        switch (job) {
+            case MESSAGES:
+                return Tower.processMessages(rc);
+            case MAP_MEMORY:
+                return MapMemory.refreshStale(rc);
+            case RUIN_EVAL:
+                return Sensing.evaluateRuins(rc);
+            case FLOW_FIELD:
+                return FlowField.build(rc);
+            case SYMMETRY:
+                return Symmetry.update(rc);
+            case EXPLORATION:
+                return Exploration.update(rc);
+        }
+        return true;
+    }
+}
@@ -6,11 +6,14 @@ import static v3.RobotPlayer.*;
 import java.util.*;
 
 public class Sensing {
+    // Scratch list the getMovable helpers fill in, the robot's tile and the 8 around it at most
+    static MapInfo[] movableTiles = new MapInfo[9];
+
     /**
      *  Finds the opponent robots within actionRadius with the lowest HP and returns its RobotInfo
      */
     public static RobotInfo findNearestLowestHP(RobotController rc) throws GameActionException {
-        RobotInfo[] nearbyRobots = rc.senseNearbyRobots(rc.getType().actionRadiusSquared, rc.getTeam().opponent());
+        RobotInfo[] nearbyRobots = TurnContext.nearbyRobots(rc, rc.getType().actionRadiusSquared, rc.getTeam().opponent());
         RobotInfo targetRobot = null;
         int minHealth = -1;
         for (RobotInfo robot: nearbyRobots) {
@@ -40,25 +43,44 @@ public class Sensing {
         }
         return true;
     }
+    static int ruinCursor = 0;
+
+    /**
+     * Scheduler job: brings the ruin registry up to date for the ruins in vision with spare bytecode
+     * Returns true once every ruin has been looked at
+     */
+    public static boolean evaluateRuins(RobotController rc) throws GameActionException {
+        MapLocation curLocation = rc.getLocation();
+        for (; ruinCursor < MapMemory.numRuins; ruinCursor++) {
+            if (!Scheduler.hasBudget()) {
+                return false;
+            }
+            if (curLocation.isWithinDistanceSquared(MapMemory.ruins[ruinCursor], GameConstants.VISION_RADIUS_SQUARED)) {
+                RuinRegistry.state(rc, ruinCursor);
+            }
+        }
+        ruinCursor = 0;
+        return true;
+    }
+
     /**
-     * Finds the closest ruin that fits the following criteria
+     * Finds the closest ruin in vision that fits the following criteria
      * 1. No tower at the ruin
      * 2. No ally robots directly adjacent to the ruin
      */
-    public static MapInfo findAnyRuin(RobotController rc, MapLocation robotLocation, MapInfo[] nearbyTiles) throws GameActionException {
-        MapInfo curRuin = null;
+    public static MapLocation findAnyRuin(RobotController rc, MapLocation robotLocation) throws GameActionException {
+        MapLocation curRuin = null;
         int minDis = -1;
-        for (MapInfo tile : nearbyTiles) {
-            if (tile.hasRuin()) {
-                MapLocation tileLocation = tile.getMapLocation();
-                if (!rc.canSenseRobotAtLocation(tileLocation)
-                        && rc.senseNearbyRobots(tileLocation, 2, rc.getTeam()).length < 1) {
+        for (int i = MapMemory.numRuins; --i >= 0; ) {
+            MapLocation tileLocation = MapMemory.ruins[i];
+            int ruinDistance = robotLocation.distanceSquaredTo(tileLocation);
+            if (ruinDistance <= GameConstants.VISION_RADIUS_SQUARED && (minDis == -1 || minDis > ruinDistance)) {
+                int state = RuinRegistry.state(rc, i);
+                if (state == RuinRegistry.UNCLAIMED
+                        || (state == RuinRegistry.CONTAMINATED && !RuinRegistry.hasAllyAdjacent(i))) {
                     // Check distance among ruins that need filling
-                    int ruinDistance = robotLocation.distanceSquaredTo(tileLocation);
-                    if (minDis == -1 || minDis > ruinDistance) {
-                        curRuin = tile;
-                        minDis = ruinDistance;
-                    }
+                    curRuin = tileLocation;
+                    minDis = ruinDistance;
                 }
             }
         }
@@ -66,25 +88,22 @@ public class Sensing {
     }
 
     /**
-     * Finds the closest ruin that fits the following criteria
+     * Finds the closest ruin in vision that fits the following criteria
      * 1. No enemy paint around the tower
      * 2. No tower at the ruin
      * 3. No ally robots directly adjacent to the ruin
      */
-    public static MapInfo findBestRuin(RobotController rc, MapLocation robotLocation, MapInfo[] nearbyTiles) throws GameActionException {
-        MapInfo curRuin = null;
+    public static MapLocation findBestRuin(RobotController rc, MapLocation robotLocation) throws GameActionException {
+        MapLocation curRuin = null;
         int minDis = -1;
-        for (MapInfo tile : nearbyTiles) {
-            if (tile.hasRuin()) {
-                MapLocation tileLocation = tile.getMapLocation();
-                if (!rc.canSenseRobotAtLocation(tileLocation) && Sensing.canBuildTower(rc, tileLocation)
-                && rc.senseNearbyRobots(tileLocation, 2, rc.getTeam()).length < 1) {
+        for (int i = MapMemory.numRuins; --i >= 0; ) {
+            MapLocation tileLocation = MapMemory.ruins[i];
+            int ruinDistance = robotLocation.distanceSquaredTo(tileLocation);
+            if (ruinDistance <= GameConstants.VISION_RADIUS_SQUARED && (minDis == -1 || minDis > ruinDistance)) {
+                if (RuinRegistry.state(rc, i) == RuinRegistry.UNCLAIMED) {
                     // Check distance among ruins that need filling
-                    int ruinDistance = robotLocation.distanceSquaredTo(tileLocation);
-                    if (minDis == -1 || minDis > ruinDistance) {
-                        curRuin = tile;
-                        minDis = ruinDistance;
-                    }
+                    curRuin = tileLocation;
+                    minDis = ruinDistance;
                 }
             }
         }
@@ -112,12 +131,16 @@ public class Sensing {
      * Paintable: tile with paint different than needed
      * If none are found, return null
      */
-    public static int[] findPaintableRuinTile(RobotController rc, MapLocation ruinLocation, PaintType[][] ruinPattern) throws GameActionException {
+    public static int[] findPaintableRuinTile(RobotController rc, MapLocation ruinLocation, int ruinPattern) throws GameActionException {
         // Iterate through the 5x5 area around a ruin
         for(int i = -2; i < 3; i++){
             for (int j = -2; j < 3; j++){
                 MapLocation patternTile = ruinLocation.translate(i, j);
-                if (rc.canPaint(patternTile) && ruinPattern[i+2][j+2] != rc.senseMapInfo(patternTile).getPaint()){
+                if (!rc.canPaint(patternTile)) {
+                    continue;
+                }
+                PaintType paint = rc.senseMapInfo(patternTile).getPaint();
+                if (Constants.isSecondaryTile(ruinPattern, i+2, j+2) ? paint != PaintType.ALLY_SECONDARY : paint != PaintType.ALLY_PRIMARY){
                     return new int[]{i, j};
                 }
             }
@@ -131,18 +154,18 @@ public class Sensing {
      *      1. Can be moved to
      *      2. Have no paint on them
      *      3. Hasn't been at this tile in the last 8 tiles it has moved to
-     * Returns an ArrayList of MapInfo for these tiles
+     * Fills movableTiles with these tiles and returns how many there are
      */
-    public static List<MapInfo> getMovableEmptyTiles(RobotController rc) throws GameActionException{
-        MapInfo[] adjacentTiles = rc.senseNearbyMapInfos(2);
-        List<MapInfo> validAdjacent = new ArrayList<>();
+    public static int getMovableEmptyTiles(RobotController rc) throws GameActionException{
+        MapInfo[] adjacentTiles = TurnContext.nearbyMapInfos(rc, 2);
+        int count = 0;
         for (MapInfo adjacentTile: adjacentTiles){
             if (adjacentTile.getPaint() == PaintType.EMPTY && adjacentTile.isPassable() &&
-                    !last8.contains(adjacentTile.getMapLocation())) {
-                validAdjacent.add(adjacentTile);
+                    !LocationHistory.contains(adjacentTile.getMapLocation())) {
+                movableTiles[count++] = adjacentTile;
             }
         }
-        return validAdjacent;
+        return count;
     }
 
     /**
@@ -150,18 +173,18 @@ public class Sensing {
      *      1. Can be moved to
      *      2. Has paint on them
      *      3. Hasn't been at this tile in the last 8 tiles it has moved to
-     * Returns an ArrayList of MapInfo for these tiles
+     * Fills movableTiles with these tiles and returns how many there are
      */
-    public static List<MapInfo> getMovablePaintedTiles(RobotController rc) throws GameActionException{
-        MapInfo[] adjacentTiles = rc.senseNearbyMapInfos(2);
-        List<MapInfo> validAdjacent = new ArrayList<>();
+    public static int getMovablePaintedTiles(RobotController rc) throws GameActionException{
+        MapInfo[] adjacentTiles = TurnContext.nearbyMapInfos(rc, 2);
+        int count = 0;
         for (MapInfo adjacentTile: adjacentTiles){
             if (adjacentTile.getPaint().isAlly() && adjacentTile.isPassable() &&
-                    !last8.contains(adjacentTile.getMapLocation())) {
-                validAdjacent.add(adjacentTile);
+                    !LocationHistory.contains(adjacentTile.getMapLocation())) {
+                movableTiles[count++] = adjacentTile;
             }
         }
-        return validAdjacent;
+        return count;
     }
 
 
@@ -172,7 +195,7 @@ public class Sensing {
      * Returns null if no tower is within range
      */
     public static RobotInfo towerInRange(RobotController rc, int range) throws GameActionException {
-        RobotInfo[] robotsInRange = rc.senseNearbyRobots(range);
+        RobotInfo[] robotsInRange = TurnContext.nearbyRobots(rc, range);
         for (RobotInfo robot: robotsInRange) {
             if (robot.getType().isTowerType()) {
                 return robot;
@@ -184,9 +207,9 @@ public class Sensing {
     public static RobotInfo towerInRange(RobotController rc, int range, boolean ally) throws GameActionException {
         RobotInfo[] robotsInRange = null;
         if (ally) {
-            robotsInRange = rc.senseNearbyRobots(range, rc.getTeam());
+            robotsInRange = TurnContext.nearbyRobots(rc, range, rc.getTeam());
         } else {
-            robotsInRange = rc.senseNearbyRobots(range, rc.getTeam().opponent());
+            robotsInRange = TurnContext.nearbyRobots(rc, range, rc.getTeam().opponent());
         }
         for (RobotInfo robot: robotsInRange) {
             if (robot.getType().isTowerType()) {
@@ -208,6 +231,20 @@ public class Sensing {
         return null;
     }
 
+    /**
+     * Returns a ruin without a tower whose pattern contains paintLoc, or null if there is none in sight
+     */
+    public static MapLocation findContestedRuin(RobotController rc, MapLocation paintLoc) throws GameActionException {
+        for (int i = MapMemory.numRuins; --i >= 0; ) {
+            MapLocation ruin = MapMemory.ruins[i];
+            if (Math.abs(ruin.x - paintLoc.x) <= 2 && Math.abs(ruin.y - paintLoc.y) <= 2
+                    && rc.canSenseLocation(ruin) && !rc.canSenseRobotAtLocation(ruin)) {
+                return ruin;
+            }
+        }
+        return null;
+    }
+
     /**
      * Counts the number of empty, passable tiles in a 3x3 area centered at center, assuming it is all visible
      */
@@ -244,165 +281,131 @@ public class Sensing {
         }
     }
 
+    /**
+     * Returns the enemy paint tile in sight farthest from the robot, the first one found on ties, or null if there is none
+     * Also sets fillEmpty to the last empty tile in sight
+     */
     public static MapInfo getNearByEnemiesSortedShuffled(RobotController rc) throws GameActionException {
-        ArrayList<MapInfo> nearbyEnemies = new ArrayList<>();
-        List<MapInfo> enemies = Arrays.asList(rc.senseNearbyMapInfos());
-        for (MapInfo enemy: enemies){
+        MapLocation curLocation = rc.getLocation();
+        MapInfo farthest = null;
+        int maxDistance = -1;
+        for (MapInfo enemy: TurnContext.nearbyMapInfos(rc)){
             if (enemy.getPaint().isEnemy()){
-                nearbyEnemies.add(enemy);
+                int distance = curLocation.distanceSquaredTo(enemy.getMapLocation());
+                if (distance > maxDistance) {
+                    farthest = enemy;
+                    maxDistance = distance;
+                }
             }
             if (enemy.getPaint() == PaintType.EMPTY && !enemy.hasRuin() && !enemy.isWall()){
                 fillEmpty = enemy;
             }
         }
-        if (nearbyEnemies.isEmpty()) {
-            return null;
-        }
-        return Collections.max(nearbyEnemies, new MapInfoDistanceComparator(rc));
+        return farthest;
     }
 
-    // scores tiles that decides where a splasher should go
+    /**
+     * Scores tiles that decides where a splasher should go
+     * A tile's score is the sum of the splash values (enemy +2, empty 0, ally or impassable -1) of the
+     * 13 tiles within distance squared 4 of it, read from the map memory's padded splash grid
+     * Candidates in the same row share most of their kernel, so each row is scored by sliding the kernel east
+     * If nothing in attack range scores at least 0, falls back to the tiles 4 away in each cardinal direction
+     */
     public static MapInfo scoreSplasherTiles(RobotController rc) throws GameActionException {
-
-        MapInfo[] nearbyTiles = rc.senseNearbyMapInfos();
-        // hash the tiles
-        for (MapInfo tile: nearbyTiles) {
-            MapLocation loc = tile.getMapLocation();
-            PaintType paint = tile.getPaint();
-            if (paint == null){
-                continue;
-            }
-
-//            if (rc.senseRobotAtLocation(loc) != null && !rc.senseRobotAtLocation(loc).getTeam().isPlayer() && rc.senseRobotAtLocation(loc).getType().isTowerType()) {
-//                currGrid[loc.x][loc.y] = -30;
-//            }
-            else if (paint == PaintType.EMPTY && tile.isPassable()) {
-                currGrid[loc.x][loc.y] = 0;
-            } else if (paint.isEnemy()){
-                currGrid[loc.x][loc.y] = 2;
-            } else if (paint.isAlly()){
-                currGrid[loc.x][loc.y] = -1;
-            } else {
-                currGrid[loc.x][loc.y] = -1;
-            }
-        }
-        MapInfo best = null;
+        // Splashers may have moved since the memory was updated at the start of the turn
+        if (!rc.getLocation().equals(MapMemory.lastLocation)) {
+            MapMemory.update(rc);
+        }
+        MapLocation curLocation = rc.getLocation();
+        int x = curLocation.x;
+        int y = curLocation.y;
+        int width = MapMemory.width;
+        int height = MapMemory.height;
+        int s = MapMemory.splashStride;
+        int[] grid = MapMemory.splashValues;
+        int[] tiles = MapMemory.tiles;
         int bestScore = -1;
-        for (MapInfo tile: nearbyTiles) {
-            if (tile.isPassable() && rc.canAttack(tile.getMapLocation())) {
-                int score = ScoreSplash(rc, tile);
-                if (score > bestScore) {
-                    bestScore = score;
-                    best = tile;
+        int bestX = -1;
+        int bestY = -1;
+        if (rc.canAttack(curLocation)) {
+            for (int dy = -2; dy <= 2; dy++) {
+                int ty = y + dy;
+                if (ty < 0 || ty >= height) {
+                    continue;
+                }
+                int half = dy == 0 ? 2 : (dy == 1 || dy == -1) ? 1 : 0;
+                int tx = Math.max(x - half, 0);
+                int end = Math.min(x + half, width - 1);
+                int c = tx + 2 + (ty + 2) * s;
+                int score = splashKernel(grid, c, s);
+                while (true) {
+                    if (score > bestScore && (tiles[tx + ty * width] & MapMemory.PASSABLE) != 0) {
+                        bestScore = score;
+                        bestX = tx;
+                        bestY = ty;
+                    }
+                    if (tx >= end) {
+                        break;
+                    }
+                    // Slide the kernel one tile east: add its new eastern edge and drop its old western edge
+                    score += grid[c - 2*s + 1] - grid[c - 2*s]
+                            + grid[c - s + 2] - grid[c - s - 1]
+                            + grid[c + 3] - grid[c - 2]
+                            + grid[c + s + 2] - grid[c + s - 1]
+                            + grid[c + 2*s + 1] - grid[c + 2*s];
+                    c++;
+                    tx++;
                 }
             }
-
         }
-        if (best == null) {
-
-            int x = rc.getLocation().x;
-            int y = rc.getLocation().y;
-            if (y + 4 < rc.getMapHeight()) {
-                MapInfo tile = rc.senseMapInfo(rc.getLocation().translate(0,4));
-                int score = ScoreSplash(rc, tile);
+        if (bestX == -1) {
+            if (y + 4 < height) {
+                int score = splashKernel(grid, x + 2 + (y + 6) * s, s);
                 if (score > bestScore) {
                     bestScore = score;
-                    best = tile;
+                    bestX = x;
+                    bestY = y + 4;
                 }
             }
-            if (x + 4 < rc.getMapWidth()) {
-                MapInfo tile = rc.senseMapInfo(rc.getLocation().translate(4,0));
-                int score = ScoreSplash(rc, tile);
+            if (x + 4 < width) {
+                int score = splashKernel(grid, x + 6 + (y + 2) * s, s);
                 if (score > bestScore) {
                     bestScore = score;
-                    best = tile;
+                    bestX = x + 4;
+                    bestY = y;
                 }
             }
             if (y - 4 > -1) {
-                MapInfo tile = rc.senseMapInfo(rc.getLocation().translate(0,-4));
-                int score = ScoreSplash(rc, tile);
+                int score = splashKernel(grid, x + 2 + (y - 2) * s, s);
                 if (score > bestScore) {
                     bestScore = score;
-                    best = tile;
+                    bestX = x;
+                    bestY = y - 4;
                 }
             }
             if (x - 4 > -1) {
-                MapInfo tile = rc.senseMapInfo(rc.getLocation().translate(-4,0));
-                int score = ScoreSplash(rc, tile);
+                int score = splashKernel(grid, x - 2 + (y + 2) * s, s);
                 if (score > bestScore) {
-                    bestScore = score;
-                    best = tile;
+                    bestX = x - 4;
+                    bestY = y;
                 }
             }
         }
-//        if (bestScore < -2){
-//
-//            return null;
-//        }
-        return best;
-    }
-
-    // scores based on paintTypes of tiles within splasher radius
-    public static int ScoreSplash(RobotController rc,  MapInfo tile) throws GameActionException {
-        int out = 0;
-        MapLocation loc = tile.getMapLocation();
-        int x = loc.x;
-        int y = loc.y;
-        int up = rc.getMapHeight();
-        int right = rc.getMapWidth();
-        if (1 < y ) {
-            out += currGrid[x][y-2];
-        }
-        if (0 < x && 0 < y){
-            out += currGrid[x-1][y-1];
-        }
-        if (0 < y){
-            out += currGrid[x][y-1];
-        }
-        if (x < right - 1 && y > 0) {
-            out += currGrid[x+1][y-1];
-        }
-        if (1 < x ){
-            out += currGrid[x-2][y];
-        }
-        if (0 < x){
-            out += currGrid[x-1][y];
-        }
-        out += currGrid[x][y];
-        if (x < right -1 ){
-            out += currGrid[x+1][y];
-        }
-        if (x < right - 2){
-            out += currGrid[x+2][y];
-        }
-        if (x > 0 && y < up -1){
-            out += currGrid[x-1][y+1];
-        }
-        if (y < up -1){
-            out += currGrid[x][y+1];
-        }
-        if (x < right -1 && y < up -1){
-            out += currGrid[x+1][y+1];
-        }
-        if (y < up - 2){
-            out += currGrid[x][y+2];
+        if (bestX == -1) {
+            return null;
         }
+        return rc.senseMapInfo(new MapLocation(bestX, bestY));
+    }
 
-//        out += map.getOrDefault(new HashableCoords(x, y-1), 0);
-//        out += map.getOrDefault(new HashableCoords(x-1, y-1), 0);
-//        out += map.getOrDefault(new HashableCoords(x, y-1), 0);
-//        out += map.getOrDefault(new HashableCoords(x+1, y-1), 0);
-//        out += map.getOrDefault(new HashableCoords(x-2, y), 0);
-//        out += map.getOrDefault(new HashableCoords(x-1, y), 0);
-//        out += map.getOrDefault(new HashableCoords(x, y), 0);
-//        out += map.getOrDefault(new HashableCoords(x+1, y), 0);
-//        out += map.getOrDefault(new HashableCoords(x+2, y), 0);
-//        out += map.getOrDefault(new HashableCoords(x-1, y+1), 0);
-//        out += map.getOrDefault(new HashableCoords(x, y+1), 0);
-//        out += map.getOrDefault(new HashableCoords(x+1, y+1), 0);
-//        out += map.getOrDefault(new HashableCoords(x, y+2), 0);
-
-        return out;
+    /**
+     * Sum of the splash values within distance squared 4 of padded index c, which must be a tile on the map
+     */
+    public static int splashKernel(int[] grid, int c, int s) {
+        return grid[c - 2*s]
+                + grid[c - s - 1] + grid[c - s] + grid[c - s + 1]
+                + grid[c - 2] + grid[c - 1] + grid[c] + grid[c + 1] + grid[c + 2]
+                + grid[c + s - 1] + grid[c + s] + grid[c + s + 1]
+                + grid[c + 2*s];
     }
 
     /**
@@ -421,31 +424,90 @@ public class Sensing {
         return false;
     }
 
-    public static int scoreTile(RobotController rc, MapLocation tile, boolean careAboutEnemy) throws GameActionException {
-        MapInfo[] surroundingTiles = rc.senseNearbyMapInfos(tile, 2);
-        int count = 30;
-        for (MapInfo surroundingTile: surroundingTiles) {
-            if (surroundingTile.getPaint().isEnemy() && careAboutEnemy) {
-                count += 5;
-            }
-            if (surroundingTile.getPaint() == PaintType.EMPTY && surroundingTile.isPassable()) {
-                count += 3;
+    // Summed-area tables of the scoreExplore terms over the 9x9 window around exploreOrigin, tile (ox + i, oy + j)
+    // adds to every entry from (i + 1) + (j + 1) * EXPLORE_STRIDE on. exploreBase holds 3 per empty passable tile,
+    // -2 per impassable tile and -3 per ally robot, exploreEnemy the enemy paint tiles
+    static final int EXPLORE_RADIUS = 4;
+    static final int EXPLORE_SIZE = 2 * EXPLORE_RADIUS + 1;
+    static final int EXPLORE_STRIDE = EXPLORE_SIZE + 1;
+    static int[] exploreBase = new int[EXPLORE_STRIDE * EXPLORE_STRIDE];
+    static int[] exploreEnemy = new int[EXPLORE_STRIDE * EXPLORE_STRIDE];
+    // Each tile's own terms, laid out like the tables; zeroed again as the tables are summed up
+    static int[] tileBase = new int[EXPLORE_STRIDE * EXPLORE_STRIDE];
+    static int[] tileEnemy = new int[EXPLORE_STRIDE * EXPLORE_STRIDE];
+    static MapLocation exploreOrigin = null;
+
+    /**
+     * Builds the tables scoreExplore reads from what the robot sees this turn
+     */
+    public static void buildExploreGrids(RobotController rc) throws GameActionException {
+        MapLocation loc = rc.getLocation();
+        int ox = loc.x - EXPLORE_RADIUS;
+        int oy = loc.y - EXPLORE_RADIUS;
+        int[] rawBase = tileBase;
+        int[] rawEnemy = tileEnemy;
+        for (MapInfo tile: TurnContext.nearbyMapInfos(rc)) {
+            MapLocation tileLoc = tile.getMapLocation();
+            int c = (tileLoc.x - ox + 1) + (tileLoc.y - oy + 1) * EXPLORE_STRIDE;
+            PaintType paint = tile.getPaint();
+            if (!tile.isPassable()) {
+                rawBase[c] = -2;
+            } else if (paint == PaintType.EMPTY) {
+                rawBase[c] = 3;
             }
-            if (!surroundingTile.isPassable()) {
-                count -= 2;
+            if (paint.isEnemy()) {
+                rawEnemy[c] = 1;
             }
-            MapLocation surroundingLocation = surroundingTile.getMapLocation();
-            if (rc.canSenseRobotAtLocation(surroundingLocation)) {
-                if (rc.senseRobotAtLocation(surroundingLocation).getTeam() == rc.getTeam()) {
-                    count -= 3;
-                }
+        }
+        for (RobotInfo ally: TurnContext.nearbyRobots(rc, -1, rc.getTeam())) {
+            MapLocation allyLoc = ally.getLocation();
+            rawBase[(allyLoc.x - ox + 1) + (allyLoc.y - oy + 1) * EXPLORE_STRIDE] -= 3;
+        }
+        // The robot itself counts as an ally robot too
+        rawBase[(EXPLORE_RADIUS + 1) * (EXPLORE_STRIDE + 1)] -= 3;
+        int[] base = exploreBase;
+        int[] enemy = exploreEnemy;
+        for (int j = 1; j < EXPLORE_STRIDE; j++) {
+            int rowBase = 0;
+            int rowEnemy = 0;
+            for (int i = 1; i < EXPLORE_STRIDE; i++) {
+                int c = i + j * EXPLORE_STRIDE;
+                rowBase += rawBase[c];
+                rowEnemy += rawEnemy[c];
+                rawBase[c] = 0;
+                rawEnemy[c] = 0;
+                base[c] = rowBase + base[c - EXPLORE_STRIDE];
+                enemy[c] = rowEnemy + enemy[c - EXPLORE_STRIDE];
             }
         }
+        exploreOrigin = new MapLocation(ox, oy);
+    }
+
+    /**
+     * Scores an exploration target by the 3x3 area around it: 30, plus 3 per empty passable tile, minus 2 per
+     * impassable tile and 3 per ally robot (the robot included), plus 5 per enemy paint tile if careAboutEnemy.
+     * Read from the tables of the last buildExploreGrids with four lookups per table, so tile must be within
+     * distance squared 2 of a tile in vision when the tables were built
+     */
+    public static int scoreExplore(MapLocation tile, boolean careAboutEnemy) {
+        // Corners of the 3x3 box around tile, clipped to the window
+        int lowX = Math.max(tile.x - exploreOrigin.x - 1, 0);
+        int lowY = Math.max(tile.y - exploreOrigin.y - 1, 0);
+        int highX = Math.min(tile.x - exploreOrigin.x + 2, EXPLORE_SIZE);
+        int highY = Math.min(tile.y - exploreOrigin.y + 2, EXPLORE_SIZE);
+        int a = lowX + lowY * EXPLORE_STRIDE;
+        int b = highX + lowY * EXPLORE_STRIDE;
+        int c = lowX + highY * EXPLORE_STRIDE;
+        int d = highX + highY * EXPLORE_STRIDE;
+        int count = 30 + exploreBase[d] - exploreBase[b] - exploreBase[c] + exploreBase[a];
+        if (careAboutEnemy) {
+            count += 5 * (exploreEnemy[d] - exploreEnemy[b] - exploreEnemy[c] + exploreEnemy[a]);
+        }
         return count;
     }
 
     public static boolean conflictsSRP(RobotController rc) throws GameActionException {
-        MapInfo[] allTiles = rc.senseNearbyMapInfos();
+        MapInfo[] allTiles = TurnContext.nearbyMapInfos(rc);
         for (MapInfo surroundingTile: allTiles) {
             if (surroundingTile.getMark().isAlly()) {
                 MapLocation south = surroundingTile.getMapLocation().add(Direction.SOUTH);
@@ -38,9 +38,11 @@ public class Soldier extends Robot {
             // If map size less than 30 by 30, then don't fill in SRP colors as wandering
             if (rc.getMapWidth() <= Constants.SRP_MAP_WIDTH && rc.getMapHeight() <= Constants.SRP_MAP_HEIGHT){
                 rc.attack(paintLocation, false);
+                TurnContext.invalidate();
             }
             else {
                 rc.attack(paintLocation, !Helper.resourcePatternGrid(rc, paintLocation));
+                TurnContext.invalidate();
             }
         }
     }
@@ -60,11 +62,13 @@ public class Soldier extends Robot {
         // Looks at all incoming messages from the past round
         for (Message message: rc.readMessages(rc.getRoundNum()-1)){
             int bytes = message.getBytes();
+            int type = Protocol.type(bytes);
             // Information is type of robot
-            if (bytes == 0 || bytes == 1 || bytes == 2) {
-                switch (bytes) {
-                    case 0:
-                        if (Constants.rng.nextDouble() <= Constants.DEV_SRP_BOT_SPLIT ||
+            if (type == Protocol.ROLE_ASSIGN) {
+                Symmetry.learn(Protocol.roleSymmetry(bytes));
+                switch (Protocol.role(bytes)) {
+                    case Protocol.ROLE_DEVELOP:
+                        if (Rng.nextDouble() <= Constants.DEV_SRP_BOT_SPLIT ||
                                 (rc.getMapWidth() <= Constants.SRP_MAP_WIDTH && rc.getMapHeight() <= Constants.SRP_MAP_HEIGHT)) {
                             soldierType = SoldierType.DEVELOP;
                         } else {
@@ -72,21 +76,26 @@ public class Soldier extends Robot {
                             soldierState = SoldierState.FILLINGSRP;
                         }
                         break;
-                    case 1:
+                    case Protocol.ROLE_ADVANCE:
                         soldierType = SoldierType.ADVANCE;
                         break;
-                    case 2:
+                    case Protocol.ROLE_ATTACK:
                         soldierType = SoldierType.ATTACK;
                         break;
                 }
+            } else if (type == Protocol.TOWER_PAINT) {
+                PaintTowers.observe(Protocol.location(bytes), Protocol.towerPaintAmount(bytes), message.getRound());
             } else if (soldierType == SoldierType.ADVANCE || soldierType == SoldierType.ATTACK) {
-                MapInfo tile = MapInfoCodec.decode(bytes);
-                if (tile.hasRuin()) {
-                    enemyTower = tile;
-                    soldierType = SoldierType.ATTACK;
-                    Soldier.resetVariables();
+                // The first fact of a message is processed last so it ends up as the wander target
+                for (int i = Protocol.numFacts(bytes); --i >= 0; ) {
+                    int fact = Protocol.fact(bytes, i);
+                    if (Protocol.factKind(fact) == Protocol.KIND_ENEMY_TOWER) {
+                        enemyTower = Protocol.factTile(fact);
+                        soldierType = SoldierType.ATTACK;
+                        Soldier.resetVariables();
+                    }
+                    wanderTarget = Protocol.location(fact);
                 }
-                wanderTarget = tile.getMapLocation();
             }
         }
     }
@@ -99,13 +108,17 @@ public class Soldier extends Robot {
     public static MapInfo updateEnemyTiles(RobotController rc, MapInfo[] nearbyTiles) throws GameActionException {
         // Check if there are enemy paint or enemy towers sensed
         RobotInfo closestEnemyTower = Sensing.towerInRange(rc, 20, false);
+        MapInfo enemyPaint = Sensing.findEnemyPaint(rc, nearbyTiles);
         if (closestEnemyTower != null) {
+            // Any enemy paint in sight fits in the same message as the tower
+            enemyPaintTile = enemyPaint;
+            contestedRuin = null;
             return rc.senseMapInfo(closestEnemyTower.getLocation());
         }
         // Find all Enemy Tiles and return one if one exists, but only care once every 15 rounds
-        MapInfo enemyPaint = Sensing.findEnemyPaint(rc, nearbyTiles);
         if (soldierMsgCooldown == -1 && enemyPaint != null) {
             soldierMsgCooldown = 30;
+            contestedRuin = Sensing.findContestedRuin(rc, enemyPaint.getMapLocation());
             return enemyPaint;
         }
         return null;
@@ -138,9 +151,9 @@ public class Soldier extends Robot {
                 soldierState = SoldierState.DELIVERINGMESSAGE;
             // Check for nearby buildable ruins if we are not currently building one
             } else if (soldierState != SoldierState.FILLINGTOWER) {
-                MapInfo bestRuin = Sensing.findBestRuin(rc, curLocation, nearbyTiles);
+                MapLocation bestRuin = Sensing.findBestRuin(rc, curLocation);
                 if (bestRuin != null) {
-                    ruinToFill = bestRuin.getMapLocation();
+                    ruinToFill = bestRuin;
                     soldierState = SoldierState.FILLINGTOWER;
                     Soldier.resetVariables();
                 }
@@ -181,20 +194,20 @@ public class Soldier extends Robot {
                 Soldier.resetVariables();
             }
             if (soldierState != SoldierState.FILLINGTOWER) {
-                MapInfo bestRuin = Sensing.findAnyRuin(rc, curLocation, nearbyTiles);
+                MapLocation bestRuin = Sensing.findAnyRuin(rc, curLocation);
                 if (bestRuin != null) {
-                    if (!Sensing.canBuildTower(rc, bestRuin.getMapLocation())) {
+                    if (!RuinRegistry.canBuild(rc, bestRuin)) {
                         soldierType = SoldierType.ADVANCE;
                         Soldier.resetVariables();
                     } else {
-                        ruinToFill = bestRuin.getMapLocation();
+                        ruinToFill = bestRuin;
                         soldierState = SoldierState.FILLINGTOWER;
                         Soldier.resetVariables();
                     }
                 }
             // Turn into an advance bot if they see an enemy paint that prevents tower building
             } else if (soldierState == SoldierState.FILLINGTOWER) {
-                if (!Sensing.canBuildTower(rc, ruinToFill)) {
+                if (!RuinRegistry.canBuild(rc, ruinToFill)) {
                     soldierType = SoldierType.ADVANCE;
                     Soldier.resetVariables();
                 }
@@ -215,7 +228,7 @@ public class Soldier extends Robot {
         } else if (soldierState == SoldierState.STUCK) {
             // If less than 30, check 5x5 area for empty or ally primary tiles and mark center
             if (rc.getMapWidth() <= Constants.SRP_MAP_WIDTH && rc.getMapHeight() <= Constants.SRP_MAP_HEIGHT && !rc.senseMapInfo(curLocation).getMark().isAlly()) {
-                MapInfo[] possSRP = rc.senseNearbyMapInfos(8);
+                MapInfo[] possSRP = TurnContext.nearbyMapInfos(rc, 8);
                 boolean canBuildSRP = true;
                 for (MapInfo map : possSRP) {
                     // If we can travel to tile and the paint is ally primary or empty, then build an srp
@@ -230,6 +243,7 @@ public class Soldier extends Robot {
                     soldierState = SoldierState.FILLINGSRP;
                     srpCenter = rc.getLocation();
                     rc.mark(rc.getLocation(), false);
+                    TurnContext.invalidate();
                 }
             }
             else if (Soldier.hasLowPaint(rc, Constants.lowPaintThreshold)){
@@ -262,7 +276,7 @@ public class Soldier extends Robot {
                         continue;
                     }
                     MapInfo srpLoc = rc.senseMapInfo(rc.getLocation().translate(i - 2, j - 2));
-                    boolean isPrimary = Constants.primarySRP.contains(new HashableCoords(i, j));
+                    boolean isPrimary = Constants.isPrimarySRP(i, j);
                     if ((srpLoc.getPaint() == PaintType.ALLY_PRIMARY && isPrimary) || (srpLoc.getPaint() == PaintType.ALLY_SECONDARY && !isPrimary)){
                         continue;
                     }
@@ -273,14 +287,17 @@ public class Soldier extends Robot {
                     // If paint is empty or ally paint doesnt match, then paint proper color
                     if (srpLoc.getPaint() == PaintType.EMPTY) {
                         rc.attack(srpLoc.getMapLocation(), !isPrimary);
+                        TurnContext.invalidate();
                         finished = false;
                         break;
                     } else if (srpLoc.getPaint() == PaintType.ALLY_PRIMARY && !isPrimary) {
                         rc.attack(srpLoc.getMapLocation(), true);
+                        TurnContext.invalidate();
                         finished = false;
                         break;
                     } else if (srpLoc.getPaint() == PaintType.ALLY_SECONDARY && isPrimary) {
                         rc.attack(srpLoc.getMapLocation(), false);
+                        TurnContext.invalidate();
                         finished = false;
                         break;
                     }
@@ -294,6 +311,7 @@ public class Soldier extends Robot {
                 }
                 if (rc.canCompleteResourcePattern(rc.getLocation())) {
                     rc.completeResourcePattern(rc.getLocation());
+                    TurnContext.invalidate();
                     soldierState = SoldierState.STUCK;
                     srpCenter = null;
                     numTurnsAlive = 0;
@@ -307,18 +325,28 @@ public class Soldier extends Robot {
      * Pathfinds towards the last known paint tower and try to message it
      */
     public static void msgTower(RobotController rc) throws GameActionException {
-        for (RobotInfo enemyRobot : rc.senseNearbyRobots(-1, rc.getTeam().opponent())) {
+        for (RobotInfo enemyRobot : TurnContext.nearbyRobots(rc, -1, rc.getTeam().opponent())) {
             if (enemyRobot.getType().isTowerType()) {
                 if (rc.canAttack(enemyRobot.getLocation())) {
                     rc.attack(enemyRobot.getLocation());
+                    TurnContext.invalidate();
                     break;
                 }
             }
         }
         MapLocation towerLocation = lastTower.getMapLocation();
         if (rc.canSenseRobotAtLocation(towerLocation) && rc.canSendMessage(towerLocation)) {
-            Communication.sendMapInformation(rc, enemyTile, towerLocation);
+            if (contestedRuin != null) {
+                Communication.sendFacts(rc, Protocol.fact(enemyTile),
+                        Protocol.fact(Protocol.KIND_CONTESTED_RUIN, contestedRuin), towerLocation);
+            } else {
+                Communication.sendEnemyTiles(rc, enemyTile, enemyPaintTile, towerLocation);
+            }
+            // Sent right away, since the soldier moves on as soon as the tower has heard from it
+            Outbox.flush(rc);
             enemyTile = null;
+            enemyPaintTile = null;
+            contestedRuin = null;
             if (soldierState != storedState) {
                 soldierState = storedState;
             } else if (ruinToFill != null) {
@@ -359,9 +387,10 @@ public class Soldier extends Robot {
      * If ignoreAlly is true, then we ignore the ruin if ally robots are already in proximity
      */
     public static void fillInRuin(RobotController rc, MapLocation ruinLocation) throws GameActionException {
+        if (Profiler.ENABLED) Profiler.begin(rc, Profiler.FILL_IN_RUIN);
         // Mark the pattern we need to draw to build a tower here if we haven't already.
         // If robot has seen a paint tower, mark random tower
-        if (!Sensing.canBuildTower(rc, ruinLocation)) {
+        if (!RuinRegistry.canBuild(rc, ruinLocation)) {
             if(rc.canSenseRobotAtLocation(ruinLocation) && rc.senseRobotAtLocation(ruinLocation).getType() == UnitType.LEVEL_ONE_PAINT_TOWER) {
                 soldierState = SoldierState.LOWONPAINT;
                 storedState = SoldierState.EXPLORING;
@@ -377,12 +406,14 @@ public class Soldier extends Robot {
         // Check to see if we know the type of tower to fill in
         if (fillTowerType != null){
             // Paint the tile at a location
-            PaintType[][] ruinPattern = (fillTowerType == UnitType.LEVEL_ONE_PAINT_TOWER) ? Constants.paintTowerPattern : (fillTowerType == UnitType.LEVEL_ONE_MONEY_TOWER) ? Constants.moneyTowerPattern : Constants.defenseTowerPattern;
+            int ruinPattern = (fillTowerType == UnitType.LEVEL_ONE_PAINT_TOWER) ? Constants.paintTowerPattern : (fillTowerType == UnitType.LEVEL_ONE_MONEY_TOWER) ? Constants.moneyTowerPattern : Constants.defenseTowerPattern;
             int[] tileToPaint = Sensing.findPaintableRuinTile(rc, ruinLocation, ruinPattern);
             if (tileToPaint != null) {
                 MapLocation tile = ruinLocation.translate(tileToPaint[0], tileToPaint[1]);
-                if (rc.canPaint(tile) && rc.canAttack(tile))
-                    rc.attack(tile, ruinPattern[tileToPaint[0]+2][tileToPaint[1]+2] == PaintType.ALLY_SECONDARY);
+                if (rc.canPaint(tile) && rc.canAttack(tile)) {
+                    rc.attack(tile, Constants.isSecondaryTile(ruinPattern, tileToPaint[0]+2, tileToPaint[1]+2));
+                    TurnContext.invalidate();
+                }
             }
             // Move to the ruin
             Direction moveDir = Pathfinding.pathfind(rc, ruinLocation);
@@ -414,16 +445,19 @@ public class Soldier extends Robot {
                             if (towerType == UnitType.LEVEL_ONE_DEFENSE_TOWER && rc.canMark(defenseMarkLoc)){
                                 // Mark defense tower at north east
                                 rc.mark(defenseMarkLoc, false);
+                                TurnContext.invalidate();
                                 fillTowerType = UnitType.LEVEL_ONE_DEFENSE_TOWER;
                             }
                             // If can mark tower, then mark it
                             else if (rc.canMark(northTower) && towerType != UnitType.LEVEL_ONE_DEFENSE_TOWER) {
                                 if (seenPaintTower){
                                     rc.mark(northTower, towerType == UnitType.LEVEL_ONE_MONEY_TOWER);
+                                    TurnContext.invalidate();
                                     fillTowerType = towerType;
                                 } else {
                                     // Otherwise, mark a paint tower
                                     rc.mark(northTower, false);
+                                    TurnContext.invalidate();
                                     fillTowerType = UnitType.LEVEL_ONE_PAINT_TOWER;
                                 }
                             }
@@ -457,6 +491,7 @@ public class Soldier extends Robot {
                 }
             }
         }
+        if (Profiler.ENABLED) Profiler.end(rc, Profiler.FILL_IN_RUIN);
     }
 
     /**
@@ -464,7 +499,12 @@ public class Soldier extends Robot {
      */
     public static void stuckBehavior(RobotController rc) throws GameActionException {
         Direction newDir;
-        if (soldierType == SoldierType.DEVELOP || soldierType == SoldierType.SRP){
+        // Nothing to do around here, so go look at a part of the map this robot hasn't seen yet
+        MapLocation frontier = Exploration.frontier(rc);
+        if (frontier != null) {
+            newDir = Pathfinding.pathfind(rc, frontier);
+        }
+        else if (soldierType == SoldierType.DEVELOP || soldierType == SoldierType.SRP){
             newDir = Pathfinding.findOwnCorner(rc);
         }
         else{
@@ -8,28 +8,31 @@ public class Splasher {
     public static void receiveLastMessage(RobotController rc) throws GameActionException {
         for(Message msg: rc.readMessages(-1)) {
             int bytes = msg.getBytes();
-            // Receives message of what type of splasher it is
-            if (bytes == 4){
-                continue;
+            if (Protocol.type(bytes) == Protocol.ROLE_ASSIGN) {
+                Symmetry.learn(Protocol.roleSymmetry(bytes));
+            } else if (Protocol.type(bytes) == Protocol.TOWER_PAINT) {
+                PaintTowers.observe(Protocol.location(bytes), Protocol.towerPaintAmount(bytes), msg.getRound());
             }
-            if (Communication.isRobotInfo(bytes)) {
-                RobotInfo message = RobotInfoCodec.decode(bytes);
-                continue;
-            } else {
-                MapInfo message = MapInfoCodec.decode(bytes);
-                // If enemy paint, then store enemy paint
-                if (message.getPaint().isEnemy()) {
-                    MapLocation robotLoc = rc.getLocation();
-                    if (removePaint == null || robotLoc.distanceSquaredTo(message.getMapLocation()) < robotLoc.distanceSquaredTo(removePaint.getMapLocation())){
-                        removePaint = message;
-                        Robot.resetVariables();
+            for (int i = Protocol.numFacts(bytes); --i >= 0; ) {
+                int fact = Protocol.fact(bytes, i);
+                switch (Protocol.factKind(fact)) {
+                    // If enemy paint or a ruin with enemy paint in it, then store enemy paint
+                    case Protocol.KIND_ENEMY_PAINT:
+                    case Protocol.KIND_CONTESTED_RUIN: {
+                        MapLocation robotLoc = rc.getLocation();
+                        if (removePaint == null || Protocol.distanceSquaredTo(fact, robotLoc) < robotLoc.distanceSquaredTo(removePaint.getMapLocation())){
+                            removePaint = Protocol.factTile(fact);
+                            Robot.resetVariables();
+                        }
+                        break;
                     }
-                }
-                // If enemy tower, then go to enemy tower location
-                else if (message.hasRuin()) {
-                    if (removePaint == null){
-                        removePaint = message;
-                        Robot.resetVariables();
+                    // If enemy tower, then go to enemy tower location
+                    case Protocol.KIND_ENEMY_TOWER: {
+                        if (removePaint == null){
+                            removePaint = Protocol.factTile(fact);
+                            Robot.resetVariables();
+                        }
+                        break;
                     }
                 }
             }
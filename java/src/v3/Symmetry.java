@@ -0,0 +1,155 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Works out which symmetry the map has from the walls and ruins in the map memory
+ * Every map is symmetric under a rotation by 180 degrees, a flip of x, or a flip of y. The symmetries the map
+ * could still have are kept as a bitmask, and one is ruled out as soon as a seen tile and its seen mirror image
+ * disagree on being impassable, or a ruin's mirror image is seen without a ruin on it. The check runs a few rows
+ * at a time with spare bytecode, comparing a whole row of the map memory bitmasks against its mirror image at once.
+ * Robots tell their paint tower when they rule a symmetry out, towers tell each other and newly spawned units
+ */
+public class Symmetry {
+    public static final int ROTATIONAL = 1;
+    public static final int HORIZONTAL = 2; // (x, y) mirrors (W - 1 - x, y)
+    public static final int VERTICAL = 4;   // (x, y) mirrors (x, H - 1 - y)
+    public static final int ALL = ROTATIONAL | HORIZONTAL | VERTICAL;
+
+    static int candidates = ALL;
+    // Set when candidates shrank since the last time it was passed on
+    static boolean changed = false;
+
+    // Next map row and ruin to check
+    static int rowCursor = 0;
+    static int ruinCursor = 0;
+
+    public static boolean isResolved() {
+        return (candidates & (candidates - 1)) == 0;
+    }
+
+    /**
+     * Rules out symmetry, unless it is the only one left
+     */
+    static void eliminate(int symmetry) {
+        if ((candidates & symmetry) != 0 && candidates != symmetry) {
+            candidates &= ~symmetry;
+            changed = true;
+        }
+    }
+
+    /**
+     * Narrows the candidates down with a mask heard from another unit; a mask of 0 carries no information
+     */
+    public static void learn(int mask) {
+        int next = candidates & mask;
+        if (next != 0 && next != candidates) {
+            candidates = next;
+            changed = true;
+        }
+    }
+
+    /**
+     * Returns the mirror image of loc under symmetry
+     */
+    public static MapLocation mirror(int symmetry, MapLocation loc) {
+        int x = (symmetry & VERTICAL) != 0 ? loc.x : MapMemory.width - 1 - loc.x;
+        int y = (symmetry & HORIZONTAL) != 0 ? loc.y : MapMemory.height - 1 - loc.y;
+        return new MapLocation(x, y);
+    }
+
+    /**
+     * Returns the mirror image of loc under the most likely symmetry left, rotational if it hasn't been ruled out
+     */
+    public static MapLocation mirror(MapLocation loc) {
+        return mirror(candidates & -candidates, loc);
+    }
+
+    /**
+     * Returns the mirror image of loc under a random symmetry that hasn't been ruled out
+     */
+    public static MapLocation randomMirror(MapLocation loc) {
+        int pick = Rng.nextInt(Integer.bitCount(candidates));
+        int mask = candidates;
+        while (pick-- > 0) {
+            mask &= mask - 1;
+        }
+        return mirror(mask & -mask, loc);
+    }
+
+    /**
+     * Rules out every candidate under which ruin's mirror image has been seen without a ruin
+     */
+    static void checkRuin(MapLocation ruin) {
+        for (int symmetry = ROTATIONAL; symmetry <= VERTICAL; symmetry <<= 1) {
+            if ((candidates & symmetry) == 0) {
+                continue;
+            }
+            MapLocation image = mirror(symmetry, ruin);
+            int tile = MapMemory.tile(image.x, image.y);
+            if ((tile & MapMemory.SEEN) != 0 && (tile & MapMemory.RUIN) == 0) {
+                eliminate(symmetry);
+            }
+        }
+    }
+
+    /**
+     * Compares row y of the map memory against its mirror image under every candidate
+     */
+    static void checkRow(int y) {
+        long[] seen = MapMemory.seenRows;
+        long[] blocked = MapMemory.blockedRows;
+        long s = seen[y];
+        if (s == 0) {
+            return;
+        }
+        long b = blocked[y];
+        int my = MapMemory.height - 1 - y;
+        // Reversing a row and shifting it down to the map width maps column x to W - 1 - x
+        int shift = 64 - MapMemory.width;
+        long reversedSeen = Long.reverse(s) >>> shift;
+        long reversedBlocked = Long.reverse(b) >>> shift;
+        if ((candidates & VERTICAL) != 0 && ((b ^ blocked[my]) & s & seen[my]) != 0) {
+            eliminate(VERTICAL);
+        }
+        if ((candidates & HORIZONTAL) != 0 && ((b ^ reversedBlocked) & s & reversedSeen) != 0) {
+            eliminate(HORIZONTAL);
+        }
+        if ((candidates & ROTATIONAL) != 0 && ((blocked[my] ^ reversedBlocked) & seen[my] & reversedSeen) != 0) {
+            eliminate(ROTATIONAL);
+        }
+    }
+
+    /**
+     * Scheduler job: checks rows, then ruins, picking up where the last call stopped
+     * Returns true once a full pass is done or the symmetry is known
+     */
+    public static boolean update(RobotController rc) {
+        while (!isResolved()) {
+            if (!Scheduler.hasBudget()) {
+                return false;
+            }
+            if (rowCursor < MapMemory.height) {
+                checkRow(rowCursor++);
+            } else if (ruinCursor < MapMemory.numRuins) {
+                checkRuin(MapMemory.ruins[ruinCursor++]);
+            } else {
+                rowCursor = 0;
+                ruinCursor = 0;
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells the robot's paint tower the candidates left if they changed and the tower is in sight
+     */
+    public static void report(RobotController rc) throws GameActionException {
+        MapInfo tower = RobotPlayer.lastTower;
+        if (changed && tower != null && rc.canSenseRobotAtLocation(tower.getMapLocation())) {
+            Outbox.enqueue(rc, tower.getMapLocation(), Protocol.symmetry(candidates), Outbox.PRIORITY_REMINDER);
+            changed = false;
+        }
+    }
+}
@@ -11,62 +11,166 @@ import java.util.Map;
  */
 
 public abstract class Tower {
+    // Messages that have been read but not processed yet, processed oldest first
+    static int[] inboxBytes = new int[Constants.INBOX_SIZE];
+    static int[] inboxSenders = new int[Constants.INBOX_SIZE];
+    static int[] inboxRounds = new int[Constants.INBOX_SIZE];
+    // Whether the sender was a robot, worked out when the message is read since the robot may leave sight before
+    // the message is processed
+    static boolean[] inboxFromRobot = new boolean[Constants.INBOX_SIZE];
+    static int inboxHead = 0;
+    static int inboxCount = 0;
+
     /**
-     * Reads new messages and does stuff
+     * Reads new messages into the inbox and processes as many as the bytecode budget allows
+     * Anything left over is handed to the scheduler and processed later this turn or on later turns
      */
     public static void readNewMessages(RobotController rc) throws GameActionException{
         // Looks at all incoming messages
         for (Message message: rc.readMessages(rc.getRoundNum()-1)){
-            int bytes = message.getBytes();
-            if (Communication.isRobotInfo(bytes)){
-                RobotInfo msg = RobotInfoCodec.decode(bytes);
+            if (inboxCount == Constants.INBOX_SIZE) {
+                // Inbox is full, so the oldest message is dropped
+                inboxHead = (inboxHead + 1) % Constants.INBOX_SIZE;
+                inboxCount--;
             }
-            else{
-                MapInfo msg = MapInfoCodec.decode(bytes);
-                // Check if message is enemy tower
-                if (msg.hasRuin()){
-                    roundsWithoutEnemy = 0;
-                    // If tower receives enemy message from robots, broadcast the information to other
-                    // towers. Additionally, spawn a splasher and a mopper
-                    if (Sensing.isRobot(rc, message.getSenderID())){
-                        RobotPlayer.broadcast = true;
-                        RobotPlayer.alertAttackSoldiers = true;
-                        spawnQueue.add(3); //  Spawns a mopper
-                        spawnQueue.add(4); //  Spawns a splasher
-                        RobotPlayer.numEnemyVisits += 1; //   Increases probability of spawning a splasher
-                    }
+            int slot = (inboxHead + inboxCount) % Constants.INBOX_SIZE;
+            inboxBytes[slot] = message.getBytes();
+            inboxSenders[slot] = message.getSenderID();
+            inboxRounds[slot] = message.getRound();
+            inboxFromRobot[slot] = Sensing.isRobot(rc, message.getSenderID());
+            inboxCount++;
+        }
+        processMessages(rc);
+    }
 
-                    // If tower receives message from tower, just alert the surrounding bots to target the enemy
-                    // paint
-                    RobotPlayer.alertRobots = true;
+    /**
+     * Processes inbox messages while there is bytecode to spare
+     * Returns true if the inbox is empty
+     */
+    public static boolean processMessages(RobotController rc) throws GameActionException {
+        boolean isMoneyTower = rc.getType().getBaseType() == UnitType.LEVEL_ONE_MONEY_TOWER;
+        while (inboxCount > 0 && Scheduler.hasBudget()) {
+            int bytes = inboxBytes[inboxHead];
+            int senderID = inboxSenders[inboxHead];
+            int sentRound = inboxRounds[inboxHead];
+            boolean fromRobot = inboxFromRobot[inboxHead];
+            inboxHead = (inboxHead + 1) % Constants.INBOX_SIZE;
+            inboxCount--;
+            if (Profiler.ENABLED) Profiler.begin(rc, Profiler.MESSAGES);
+            if (handleTeamMessage(rc, bytes, senderID, sentRound)) {
+                // Handled the same way by every tower
+            } else if (isMoneyTower) {
+                MoneyTower.handleMessage(rc, bytes, fromRobot);
+            } else {
+                Tower.handleMessage(rc, bytes, fromRobot);
+            }
+            if (Profiler.ENABLED) Profiler.end(rc, Profiler.MESSAGES);
+        }
+        if (inboxCount > 0) {
+            Scheduler.schedule(Scheduler.MESSAGES);
+            return false;
+        }
+        return true;
+    }
 
-                    // Update enemy tile regardless
-                    RobotPlayer.enemyTarget = msg;
-                    enemyTower = msg;
+    /**
+     * Handles the messages that aren't about the enemy, returns false if bytes is about the enemy
+     * sentRound is the round the message was sent on, which may be a few rounds back if it waited in the inbox
+     */
+    public static boolean handleTeamMessage(RobotController rc, int bytes, int senderID, int sentRound) throws GameActionException {
+        switch (Protocol.type(bytes)) {
+            case Protocol.SYMMETRY:
+                Symmetry.learn(Protocol.symmetryMask(bytes));
+                return true;
+            case Protocol.TOWER_PAINT:
+                PaintTowers.observe(Protocol.location(bytes), Protocol.towerPaintAmount(bytes), sentRound);
+                return true;
+            case Protocol.REFILL_REQUEST: {
+                // Point the robot to the paint tower it should refill at
+                int round = rc.getRoundNum();
+                int best = PaintTowers.best(Protocol.location(bytes), 0, round);
+                if (best != -1) {
+                    Outbox.enqueue(rc, senderID, Protocol.towerPaint(PaintTowers.location(best),
+                            PaintTowers.estimate(best, round)), Outbox.PRIORITY_REPORT);
                 }
-                // Check if message is enemy paint
-                else if (msg.getPaint().isEnemy()){
-                    roundsWithoutEnemy = 0;
-                    // If tower receives enemy message from robots, broadcast the information to other
-                    // towers. Additionally, spawn a splasher and a mopper
-                    if (Sensing.isRobot(rc, message.getSenderID())){
-                        broadcast = true;
-                        if (Constants.rng.nextDouble() <= 0.5) {
-                            spawnQueue.add(4); //  Spawns a splasher
-                        } else {
-                            spawnQueue.add(3); //  Spawns a mopper
-                        }
-                        numEnemyVisits += 1; //   Increases probability of spawning a splasher
-                    }
+                return true;
+            }
+        }
+        return false;
+    }
 
-                    // If tower receives message from tower, just alert the surrounding bots to target the enemy
-                    // paint
-                    alertRobots = true;
+    /**
+     * Handles a single message, sent by a robot if fromRobot and by a tower otherwise
+     */
+    public static void handleMessage(RobotController rc, int bytes, boolean fromRobot) throws GameActionException {
+        for (int i = Protocol.numFacts(bytes); --i >= 0; ) {
+            handleFact(rc, Protocol.fact(bytes, i), fromRobot);
+        }
+    }
+
+    /**
+     * Adds an enemy sighting to the gossip table, and queues it for the other towers if a robot reported it
+     * and the area wasn't relayed recently
+     */
+    public static void learnFact(RobotController rc, int fact, boolean fromRobot) {
+        int round = rc.getRoundNum();
+        if (fromRobot) {
+            // Reports of an area that was just relayed are merged into that relay
+            Gossip.observe(round, fact, RelayCache.shouldRelay(round, fact));
+        } else {
+            // Another tower relayed it, so every tower has heard about it already
+            RelayCache.record(round, fact);
+            Gossip.observe(round, fact, false);
+        }
+    }
+
+    /**
+     * Handles a single enemy sighting, sent by a robot if fromRobot and by a tower otherwise
+     */
+    public static void handleFact(RobotController rc, int fact, boolean fromRobot) throws GameActionException {
+        learnFact(rc, fact, fromRobot);
+        switch (Protocol.factKind(fact)) {
+            case Protocol.KIND_ENEMY_TOWER: {
+                roundsWithoutEnemy = 0;
+                // If tower receives enemy message from robots, spawn a splasher and a mopper
+                if (fromRobot){
+                    RobotPlayer.alertAttackSoldiers = true;
+                    spawnQueue.add(Protocol.ROLE_MOPPER);
+                    spawnQueue.add(Protocol.ROLE_SPLASHER);
+                    RobotPlayer.numEnemyVisits += 1; //   Increases probability of spawning a splasher
+                }
 
+                // If tower receives message from tower, just alert the surrounding bots to target the enemy
+                // paint
+                RobotPlayer.alertRobots = true;
 
-                    // Update enemy tile regardless
-                   enemyTarget = msg;
+                // Update enemy tile regardless
+                MapInfo msg = Protocol.factTile(fact);
+                RobotPlayer.enemyTarget = msg;
+                enemyTower = msg;
+                enemyTowerRound = rc.getRoundNum();
+                break;
+            }
+            case Protocol.KIND_ENEMY_PAINT:
+            case Protocol.KIND_CONTESTED_RUIN: {
+                roundsWithoutEnemy = 0;
+                // If tower receives enemy message from robots, spawn a splasher or a mopper
+                if (fromRobot){
+                    if (Rng.nextDouble() <= 0.5) {
+                        spawnQueue.add(Protocol.ROLE_SPLASHER);
+                    } else {
+                        spawnQueue.add(Protocol.ROLE_MOPPER);
+                    }
+                    numEnemyVisits += 1; //   Increases probability of spawning a splasher
                 }
+
+                // If tower receives message from tower, just alert the surrounding bots to target the enemy
+                // paint
+                alertRobots = true;
+
+                // Update enemy tile regardless
+                enemyTarget = Protocol.factTile(fact);
+                break;
             }
         }
     }
@@ -77,6 +181,7 @@ public abstract class Tower {
     public static void buildIfPossible(RobotController rc, UnitType robotType, MapLocation location)  throws GameActionException {
         if (rc.canBuildRobot(robotType, location)) {
             rc.buildRobot(robotType, location);
+            TurnContext.invalidate();
         }
     }
 
@@ -84,20 +189,20 @@ public abstract class Tower {
      * Builds an advance/develop soldier, weighted by how long it has been since the tower last saw a robot
      */
     public static void addRandomToQueue(RobotController rc) throws GameActionException {
-        if (Constants.rng.nextDouble() < numEnemyVisits*0.2
-                || (numSoldiersSpawned > Constants.SPLASHER_CUTOFF && Constants.rng.nextDouble() < Constants.SPLASHER_SOLDIER_SPLIT)) {
-            spawnQueue.add(4);
+        if (Rng.nextDouble() < numEnemyVisits*0.2
+                || (numSoldiersSpawned > Constants.SPLASHER_CUTOFF && Rng.nextDouble() < Constants.SPLASHER_SOLDIER_SPLIT)) {
+            spawnQueue.add(Protocol.ROLE_SPLASHER);
             numEnemyVisits = 0;
         } else {
             numSoldiersSpawned++;
             // odds of explore robot increases linearly from 30-70 to 60-40
-            if (Constants.rng.nextDouble() <
+            if (Rng.nextDouble() <
                     Math.min((roundsWithoutEnemy+Constants.INIT_PROBABILITY_DEVELOP) / Constants.DEVELOP_BOT_PROB_SCALING,
                             Constants.DEVELOP_BOT_PROBABILITY_CAP)){
-                spawnQueue.add(0);
+                spawnQueue.add(Protocol.ROLE_DEVELOP);
             }
             else{
-                spawnQueue.add(1);
+                spawnQueue.add(Protocol.ROLE_ADVANCE);
             }
         }
     }
@@ -108,6 +213,7 @@ public abstract class Tower {
     public static void fireAttackIfPossible(RobotController rc, MapLocation location) throws GameActionException {
         if (rc.canAttack(location))  {
             rc.attack(location);
+            TurnContext.invalidate();
         }
     }
 
@@ -127,6 +233,7 @@ public abstract class Tower {
     public static void aoeAttackIfPossible(RobotController rc) throws GameActionException {
         if (rc.canAttack(null)) {
             rc.attack(null);
+            TurnContext.invalidate();
         }
     }
 
@@ -138,11 +245,13 @@ public abstract class Tower {
         if (startSquareCovered(rc)){
             if (rc.canBuildRobot(UnitType.MOPPER, addedDir)) {
                 rc.buildRobot(UnitType.MOPPER, addedDir);
+                TurnContext.invalidate();
                 return;
             }
         }
         if (rc.canBuildRobot(UnitType.SOLDIER, addedDir)) {
             rc.buildRobot(UnitType.SOLDIER, addedDir);
+            TurnContext.invalidate();
             sendTypeMessage = true;
         }
     }
@@ -154,6 +263,7 @@ public abstract class Tower {
         MapLocation addedDir = rc.getLocation().add(spawnDirection);
         if (rc.canBuildRobot(UnitType.MOPPER, addedDir)) {
             rc.buildRobot(UnitType.MOPPER, addedDir);
+            TurnContext.invalidate();
             sendTypeMessage = true;
         }
     }
@@ -165,6 +275,7 @@ public abstract class Tower {
         MapLocation addedDir = rc.getLocation().add(spawnDirection);
         if (rc.canBuildRobot(UnitType.SPLASHER, addedDir)) {
             rc.buildRobot(UnitType.SPLASHER, addedDir);
+            TurnContext.invalidate();
             sendTypeMessage = true;
         }
     }
@@ -174,11 +285,15 @@ public abstract class Tower {
      */
     public static void sendTypeMessage(RobotController rc, int robotType) throws GameActionException {
         MapLocation addedDir = rc.getLocation().add(spawnDirection);
-        if (rc.canSenseRobotAtLocation(addedDir) && rc.canSendMessage(addedDir)){
-            rc.sendMessage(addedDir, robotType);
-            // If robot is an attack soldier or mopper, send enemy tile location as well
-            if (robotType == 4 || robotType == 3 || robotType == 2) {
-                Communication.sendMapInformation(rc, enemyTarget, addedDir);
+        if (rc.canSenseRobotAtLocation(addedDir)){
+            // The role goes out before the enemy tiles, which only mean something once the role is known
+            Outbox.enqueue(rc, addedDir, Protocol.roleAssign(robotType, Symmetry.candidates), Outbox.PRIORITY_ROLE);
+            // If robot is an attack soldier or mopper, send what it cares about most from the gossip table as well
+            if (robotType == Protocol.ROLE_SPLASHER || robotType == Protocol.ROLE_MOPPER || robotType == Protocol.ROLE_ATTACK) {
+                int msg = Gossip.spawnMessage(rc.getRoundNum(), robotType, addedDir);
+                if (msg != 0) {
+                    Outbox.enqueue(rc, addedDir, msg, Outbox.PRIORITY_REPORT);
+                }
             }
         }
         sendTypeMessage = false;
@@ -210,10 +325,14 @@ public abstract class Tower {
      *     message all nearby robots about lastest enemyTile
      */
     public static void broadcastNearbyBots(RobotController rc) throws GameActionException {
-        for (RobotInfo bot: rc.senseNearbyRobots()){
+        // The latest enemy tower rides along in the same message while it is recent, older ones are only
+        // repeated by broadcastEnemyTower
+        MapInfo tower = rc.getRoundNum() - enemyTowerRound <= Constants.ENEMY_TOWER_PAIR_ROUNDS ? enemyTower : null;
+        int msg = Protocol.enemyTiles(RobotPlayer.enemyTarget, tower);
+        for (RobotInfo bot: TurnContext.nearbyRobots(rc, -1, rc.getTeam())){
             // Only sends messages to moppers and splashers
-            if (rc.canSendMessage(bot.getLocation()) && isAttackType(rc, bot)){
-                rc.sendMessage(bot.getLocation(), MapInfoCodec.encode(RobotPlayer.enemyTarget));
+            if (isAttackType(rc, bot)){
+                Outbox.enqueue(rc, bot.getID(), msg, Outbox.PRIORITY_ALERT);
             }
         }
         alertRobots = false;
@@ -224,10 +343,11 @@ public abstract class Tower {
      *     message all nearby robots about latest enemyTower
      */
     public static void broadcastEnemyTower(RobotController rc) throws GameActionException {
-        for (RobotInfo bot: rc.senseNearbyRobots()){
-            // Only sends messages to moppers and splashers
-            if (rc.canSendMessage(bot.getLocation())){
-                rc.sendMessage(bot.getLocation(), MapInfoCodec.encode(RobotPlayer.enemyTower));
+        int msg = Protocol.enemyTile(RobotPlayer.enemyTower);
+        for (RobotInfo bot: TurnContext.nearbyRobots(rc, -1, rc.getTeam())){
+            // Towers can't message each other, anything more urgent for the same robot is sent first
+            if (bot.getType().isRobotType()) {
+                Outbox.enqueue(rc, bot.getID(), msg, Outbox.PRIORITY_REMINDER);
             }
         }
     }
@@ -239,7 +359,7 @@ public abstract class Tower {
 
     public static int countEnemyPaint(RobotController rc) throws GameActionException {
         int out = 0;
-        for (MapInfo map: rc.senseNearbyMapInfos()){
+        for (MapInfo map: TurnContext.nearbyMapInfos(rc)){
             if (map.getPaint().isEnemy()){
                 out ++;
             }
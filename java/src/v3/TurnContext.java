@@ -0,0 +1,103 @@
+package v3;
+
+import battlecode.common.*;
+
+/**
+ * Per-turn cache of everything a robot senses around itself
+ * Every radius is sensed from the engine at most once per round and location, and repeat calls
+ * return the same array. Moving changes what the robot can see, so the cache is also keyed on location.
+ * Only calls centered on the robot itself are cached, calls around another tile still go to the engine.
+ * Painting, attacking, swinging, transferring paint, marking, building and completing patterns change what the
+ * robot senses without moving it, so every such action is followed by a call to invalidate
+ */
+public class TurnContext {
+    // radiusSquared is clamped to [0, 20]; full vision (-1) shares the slot of radius 20
+    static final int MAX_RADIUS = GameConstants.VISION_RADIUS_SQUARED;
+    static final int ALL = 0;
+    static final int ALLY = 1;
+    static final int ENEMY = 2;
+
+    static int round = -1;
+    static MapLocation location = null;
+    static int stamp = 0;
+
+    static MapInfo[][] tiles = new MapInfo[MAX_RADIUS + 1][];
+    static int[] tileStamps = new int[MAX_RADIUS + 1];
+    static RobotInfo[][] robots = new RobotInfo[3 * (MAX_RADIUS + 1)][];
+    static int[] robotStamps = new int[3 * (MAX_RADIUS + 1)];
+
+    /**
+     * Starts a new cache generation if the round or the robot's location changed since the last call
+     */
+    public static void update(RobotController rc) {
+        int curRound = rc.getRoundNum();
+        MapLocation curLocation = rc.getLocation();
+        if (curRound != round || !curLocation.equals(location)) {
+            round = curRound;
+            location = curLocation;
+            stamp++;
+        }
+    }
+
+    /**
+     * Drops everything sensed so far, called after every action that changes tiles or robots in sight
+     */
+    public static void invalidate() {
+        stamp++;
+    }
+
+    /**
+     * Cached version of rc.senseNearbyMapInfos()
+     */
+    public static MapInfo[] nearbyMapInfos(RobotController rc) throws GameActionException {
+        return nearbyMapInfos(rc, MAX_RADIUS);
+    }
+
+    /**
+     * Cached version of rc.senseNearbyMapInfos(radiusSquared)
+     */
+    public static MapInfo[] nearbyMapInfos(RobotController rc, int radiusSquared) throws GameActionException {
+        update(rc);
+        int slot = (radiusSquared < 0 || radiusSquared > MAX_RADIUS) ? MAX_RADIUS : radiusSquared;
+        if (tileStamps[slot] != stamp) {
+            tiles[slot] = rc.senseNearbyMapInfos(slot);
+            tileStamps[slot] = stamp;
+        }
+        return tiles[slot];
+    }
+
+    /**
+     * Cached version of rc.senseNearbyRobots()
+     */
+    public static RobotInfo[] nearbyRobots(RobotController rc) throws GameActionException {
+        return nearbyRobots(rc, MAX_RADIUS);
+    }
+
+    /**
+     * Cached version of rc.senseNearbyRobots(radiusSquared)
+     */
+    public static RobotInfo[] nearbyRobots(RobotController rc, int radiusSquared) throws GameActionException {
+        update(rc);
+        int slot = (radiusSquared < 0 || radiusSquared > MAX_RADIUS) ? MAX_RADIUS : radiusSquared;
+        int index = 3 * slot + ALL;
+        if (robotStamps[index] != stamp) {
+            robots[index] = rc.senseNearbyRobots(slot);
+            robotStamps[index] = stamp;
+        }
+        return robots[index];
+    }
+
+    /**
+     * Cached version of rc.senseNearbyRobots(radiusSquared, team)
+     */
+    public static RobotInfo[] nearbyRobots(RobotController rc, int radiusSquared, Team team) throws GameActionException {
+        update(rc);
+        int slot = (radiusSquared < 0 || radiusSquared > MAX_RADIUS) ? MAX_RADIUS : radiusSquared;
+        int index = 3 * slot + (team == rc.getTeam() ? ALLY : ENEMY);
+        if (robotStamps[index] != stamp) {
+            robots[index] = rc.senseNearbyRobots(slot, team);
+            robotStamps[index] = stamp;
+        }
+        return robots[index];
+    }
+}